@@ -0,0 +1,93 @@
+package com.transferwise.common.entrypoints.databaseaccessstatistics;
+
+import com.transferwise.common.context.TwContext;
+import com.transferwise.common.spyql.SpyqlTransactionDefinition;
+import com.transferwise.common.spyql.event.ConnectionCloseEvent;
+import com.transferwise.common.spyql.event.GetConnectionEvent;
+import com.transferwise.common.spyql.event.ResultSetNextRowsEvent;
+import com.transferwise.common.spyql.event.SpyqlTransaction;
+import com.transferwise.common.spyql.event.StatementExecuteEvent;
+import com.transferwise.common.spyql.event.TransactionBeginEvent;
+import com.transferwise.common.spyql.event.TransactionCommitEvent;
+import com.transferwise.common.spyql.listener.SpyqlConnectionListener;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DAS handling of the Spyql events, inside an entrypoint.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DasConnectionListenerBenchmark {
+
+  private DatabaseAccessStatisticsSpyqlListener listener;
+  private SpyqlConnectionListener connectionListener;
+  private TwContext previousContext;
+  private TwContext context;
+
+  private final GetConnectionEvent getConnectionEvent = new GetConnectionEvent();
+  private final ConnectionCloseEvent connectionCloseEvent = new ConnectionCloseEvent().setExecutionTimeNs(1_000);
+  private final StatementExecuteEvent statementExecuteEvent = new StatementExecuteEvent()
+      .setSql("select id from tw_task where id = ?").setInTransaction(true).setExecutionTimeNs(1_000_000).setAffectedRowsCount(1);
+  private final ResultSetNextRowsEvent resultSetNextRowsEvent = new ResultSetNextRowsEvent().setRowsCount(1);
+  private TransactionBeginEvent transactionBeginEvent;
+  private TransactionCommitEvent transactionCommitEvent;
+
+  @Setup
+  public void setup() {
+    previousContext = TwContext.current();
+    context = TwContext.current().createSubContext().asEntryPoint("Benchmark", "dasConnectionListener");
+    context.put(DatabaseAccessStatistics.TW_CONTEXT_KEY, new ConcurrentHashMap<String, DatabaseAccessStatistics>());
+    context.attach();
+
+    listener = new DatabaseAccessStatisticsSpyqlListener("benchmarkdb");
+    connectionListener = listener.onGetConnection(getConnectionEvent);
+
+    var transaction = new SpyqlTransaction().setDefinition(new SpyqlTransactionDefinition()).setStartTime(Instant.now())
+        .setEndTime(Instant.now()).setEmpty(false);
+    transactionBeginEvent = new TransactionBeginEvent().setTransaction(transaction);
+    transactionCommitEvent = new TransactionCommitEvent().setTransaction(transaction).setExecutionTimeNs(1_000_000);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.detach(previousContext);
+  }
+
+  @Benchmark
+  public void statementExecute() {
+    connectionListener.onStatementExecute(statementExecuteEvent);
+  }
+
+  @Benchmark
+  public void resultSetNextRows() {
+    connectionListener.onResultSetNextRecords(resultSetNextRowsEvent);
+  }
+
+  @Benchmark
+  public void transaction() {
+    connectionListener.onTransactionBegin(transactionBeginEvent);
+    connectionListener.onTransactionCommit(transactionCommitEvent);
+  }
+
+  @Benchmark
+  public void connection() {
+    listener.onGetConnection(getConnectionEvent).onConnectionClose(connectionCloseEvent);
+  }
+}
@@ -0,0 +1,96 @@
+package com.transferwise.common.entrypoints.databaseaccessstatistics;
+
+import com.transferwise.common.spyql.event.StatementExecuteEvent;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Registering a query into `DatabaseAccessStatistics`, compared to the `AtomicLong` based counting it had before.
+ *
+ * <p>`shared*` benchmarks have all the threads updating the same instance, as happens for the calls outside of entrypoints. `owner*` ones
+ * have an instance per thread, as happens inside entrypoints.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DasCountersBenchmark {
+
+  private static final StatementExecuteEvent EVENT = new StatementExecuteEvent().setSql("select 1").setInTransaction(true)
+      .setExecutionTimeNs(1_000_000).setAffectedRowsCount(1);
+
+  @State(Scope.Benchmark)
+  public static class Shared {
+
+    private final DatabaseAccessStatistics das = new DatabaseAccessStatistics("benchmarkdb");
+    private final AtomicCounts atomicCounts = new AtomicCounts();
+  }
+
+  @State(Scope.Thread)
+  public static class Owned {
+
+    private DatabaseAccessStatistics das;
+    private AtomicCounts atomicCounts;
+
+    @Setup
+    public void setup() {
+      das = new DatabaseAccessStatistics("benchmarkdb", Thread.currentThread());
+      atomicCounts = new AtomicCounts();
+    }
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void sharedStriped(Shared shared) {
+    shared.das.registerQuery(EVENT);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void sharedAtomicLongs(Shared shared) {
+    shared.atomicCounts.registerQuery(EVENT);
+  }
+
+  @Benchmark
+  public void ownerPlainWrites(Owned owned) {
+    owned.das.registerQuery(EVENT);
+  }
+
+  @Benchmark
+  public void ownerAtomicLongs(Owned owned) {
+    owned.atomicCounts.registerQuery(EVENT);
+  }
+
+  /**
+   * How `DatabaseAccessStatistics.registerQuery` used to count.
+   */
+  static class AtomicCounts {
+
+    private final AtomicLong nonTransactionalQueriesCount = new AtomicLong();
+    private final AtomicLong transactionalQueriesCount = new AtomicLong();
+    private final AtomicLong timeTakenInDatabaseNs = new AtomicLong();
+    private final AtomicLong affectedRowsCount = new AtomicLong();
+
+    void registerQuery(StatementExecuteEvent event) {
+      if (event.isInTransaction()) {
+        transactionalQueriesCount.incrementAndGet();
+      } else {
+        nonTransactionalQueriesCount.incrementAndGet();
+      }
+      timeTakenInDatabaseNs.addAndGet(event.getExecutionTimeNs());
+      affectedRowsCount.addAndGet(event.getAffectedRowsCount());
+    }
+  }
+}
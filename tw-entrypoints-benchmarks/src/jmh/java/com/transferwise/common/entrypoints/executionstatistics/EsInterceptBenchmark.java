@@ -0,0 +1,64 @@
+package com.transferwise.common.entrypoints.executionstatistics;
+
+import com.transferwise.common.baseutils.meters.cache.MeterCache;
+import com.transferwise.common.context.TwContext;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ES overhead of an entrypoint doing nothing.
+ *
+ * <p>`resourceUsage` measures the thread CPU time and allocated bytes as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EsInterceptBenchmark {
+
+  private final Supplier<Object> supplier = () -> Boolean.TRUE;
+
+  @Param({"false", "true"})
+  private boolean resourceUsage;
+
+  private ExecutionStatisticsEntryPointInterceptor interceptor;
+  private TwContext previousContext;
+  private TwContext context;
+
+  @Setup
+  public void setup() {
+    var entryPointsProperties = new EntryPointsProperties();
+    entryPointsProperties.getEs().setCpuTimeEnabled(resourceUsage);
+    entryPointsProperties.getEs().setAllocatedBytesEnabled(resourceUsage);
+    interceptor = new ExecutionStatisticsEntryPointInterceptor(new MeterCache(new SimpleMeterRegistry()), entryPointsProperties);
+    previousContext = TwContext.current();
+    context = TwContext.current().createSubContext().asEntryPoint("Benchmark", "esIntercept");
+    context.attach();
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.detach(previousContext);
+  }
+
+  @Benchmark
+  public Object intercept() {
+    return interceptor.intercept(context, supplier);
+  }
+}
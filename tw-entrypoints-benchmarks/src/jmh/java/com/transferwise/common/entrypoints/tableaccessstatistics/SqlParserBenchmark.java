@@ -0,0 +1,80 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import net.sf.jsqlparser.JSQLParserException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing a corpus of statements, as typically seen from Hibernate, jOOQ and hand-written JDBC code.
+ *
+ * <p>One operation parses the whole corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlParserBenchmark {
+
+  static final List<String> CORPUS = List.of(
+      "select id, status, version, next_event_time from tw_task where status = ? and next_event_time < ? order by next_event_time limit ?",
+      "select t1_0.id,t1_0.created_at,t1_0.state,t1_0.version from transfer t1_0 where t1_0.id=?",
+      "select p1_0.id,p1_0.amount,p1_0.currency,b1_0.id,b1_0.name from payout p1_0 left join batch b1_0 on b1_0.id=p1_0.batch_id "
+          + "where p1_0.state in (?,?,?) and p1_0.created_at>?",
+      "insert into tw_task (id, type, sub_type, status, data, next_event_time, version) values (?, ?, ?, ?, ?, ?, ?)",
+      "insert into outbox_message (id, topic, payload, created_at) values (?, ?, ?, ?) on duplicate key update payload = values(payload)",
+      "update tw_task set status = ?, next_event_time = ?, version = version + 1 where id = ? and version = ?",
+      "update payout p join batch b on b.id = p.batch_id set p.state = ? where b.id = ?",
+      "delete from tw_task_unique_key where task_id = ?",
+      "select count(*) from (select distinct user_id from transfer where created_at > ? and state = ?) t",
+      "with recent as (select id, user_id from transfer where created_at > ?) select r.id, u.email from recent r join user u on u.id = r.user_id",
+      "select id from transfer where id in (select transfer_id from payout where state = ?) for update",
+      "select * from `fx`.`quote` q where q.source = ? and q.target = ? union all select * from `fx`.`quote_archive` qa where qa.id = ?"
+  );
+
+  private ExecutorService executorService;
+  private SqlParser sqlParser;
+  private FastSqlParser fastSqlParser;
+
+  @Setup
+  public void setup() {
+    executorService = Executors.newCachedThreadPool();
+    sqlParser = new SqlParser(executorService);
+    fastSqlParser = new FastSqlParser();
+  }
+
+  @TearDown
+  public void tearDown() {
+    executorService.shutdown();
+  }
+
+  @Benchmark
+  public void jSqlParser(Blackhole blackhole) throws JSQLParserException {
+    for (String sql : CORPUS) {
+      blackhole.consume(sqlParser.parse(sql, Duration.ofSeconds(5)));
+    }
+  }
+
+  @Benchmark
+  public void fastSqlParser(Blackhole blackhole) {
+    for (String sql : CORPUS) {
+      blackhole.consume(fastSqlParser.parse(sql));
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import static com.transferwise.common.entrypoints.EntryPointsMetrics.TAG_IN_TRANSACTION;
+import static com.transferwise.common.entrypoints.EntryPointsMetrics.TAG_OPERATION;
+import static com.transferwise.common.entrypoints.EntryPointsMetrics.TAG_SUCCESS;
+import static com.transferwise.common.entrypoints.EntryPointsMetrics.TAG_TABLE;
+
+import com.transferwise.common.baseutils.meters.cache.IMeterCache;
+import com.transferwise.common.baseutils.meters.cache.MeterCache;
+import com.transferwise.common.baseutils.meters.cache.TagsSet;
+import com.transferwise.common.context.TwContextMetricsTemplate;
+import com.transferwise.common.entrypoints.EntryPointsMetrics;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import com.transferwise.common.entrypoints.tableaccessstatistics.ParsedQuery.SqlOperation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Registering the table accesses of one already parsed statement.
+ *
+ * <p>`tagsSetPerTable` is the registration as it was before the meter bundles, building the tags and looking up the meters for every
+ * table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TasMeterBundlesBenchmark {
+
+  private static final String EP_GROUP = "Web";
+  private static final String EP_NAME = "/v1/transfers/{id}";
+  private static final String EP_OWNER = "payments";
+
+  @Param({"1", "5"})
+  private int tablesCount;
+
+  private ExecutorService executorService;
+  private IMeterCache meterCache;
+  private TableAccessStatisticsSpyqlListener listener;
+  private FrozenParsedQuery parsedQuery;
+
+  @Setup
+  public void setup() {
+    executorService = Executors.newCachedThreadPool();
+    meterCache = new MeterCache(new SimpleMeterRegistry());
+    var entryPointsProperties = new EntryPointsProperties();
+    listener = new TableAccessStatisticsSpyqlListener(meterCache, executorService, new DefaultTasParsedQueryRegistry(), "benchmarkdb",
+        entryPointsProperties, new DefaultTasQueryParsingListener(entryPointsProperties), new DefaultTasQueryParsingInterceptor());
+
+    var sqlOperation = new SqlOperation();
+    for (int i = 0; i < tablesCount; i++) {
+      sqlOperation.addTable("table_" + i);
+    }
+    parsedQuery = FrozenParsedQuery.of(new ParsedQuery().addOperation("select", sqlOperation));
+  }
+
+  @TearDown
+  public void tearDown() {
+    executorService.shutdown();
+  }
+
+  @Benchmark
+  public void meterBundles() {
+    listener.registerTableAccess(parsedQuery, EP_GROUP, EP_NAME, EP_OWNER, true, true, 1_000_000, 1);
+  }
+
+  @Benchmark
+  public void tagsSetPerTable() {
+    for (int i = 0; i < parsedQuery.getOperationsCount(); i++) {
+      for (int j = 0; j < parsedQuery.getTablesCount(i); j++) {
+        final TagsSet tagsSet = TagsSet.of(
+            EntryPointsMetrics.TAG_DATABASE, "benchmarkdb",
+            TwContextMetricsTemplate.TAG_EP_GROUP, EP_GROUP,
+            TwContextMetricsTemplate.TAG_EP_NAME, EP_NAME,
+            TwContextMetricsTemplate.TAG_EP_OWNER, EP_OWNER,
+            TAG_IN_TRANSACTION, "true",
+            TAG_OPERATION, parsedQuery.getOperationName(i),
+            TAG_SUCCESS, "true",
+            TAG_TABLE, parsedQuery.getTableName(i, j));
+
+        if (j == 0) {
+          meterCache.timer(TableAccessStatisticsSpyqlListener.TIMER_FIRST_TABLE_ACCESS, tagsSet).record(1_000_000, TimeUnit.NANOSECONDS);
+        }
+        meterCache.counter(TableAccessStatisticsSpyqlListener.COUNTER_TABLE_ACCESS, tagsSet).increment();
+      }
+    }
+  }
+}
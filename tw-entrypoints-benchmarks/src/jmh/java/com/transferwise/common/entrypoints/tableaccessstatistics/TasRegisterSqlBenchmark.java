@@ -0,0 +1,85 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import com.transferwise.common.baseutils.meters.cache.MeterCache;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import com.transferwise.common.spyql.event.GetConnectionEvent;
+import com.transferwise.common.spyql.event.StatementExecuteEvent;
+import com.transferwise.common.spyql.listener.SpyqlConnectionListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full TAS handling of one executed statement, from the Spyql event to the counters.
+ *
+ * <p>`cacheMiss` invalidates the parse results cache before every invocation, so it includes the normalization, the parse and the meters
+ * resolution.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TasRegisterSqlBenchmark {
+
+  @Param({
+      "select id, status, version from tw_task where id = 1234 and version = 5",
+      "select t.id, d.data from tw_task t join tw_task_data d on d.task_id = t.id where t.status in ('NEW', 'WAITING') limit 100"
+  })
+  private String sql;
+
+  private ExecutorService executorService;
+  private TableAccessStatisticsSpyqlListener listener;
+  private SpyqlConnectionListener connectionListener;
+  private StatementExecuteEvent event;
+
+  @Setup
+  public void setup() {
+    executorService = Executors.newCachedThreadPool();
+    var entryPointsProperties = new EntryPointsProperties();
+    listener = new TableAccessStatisticsSpyqlListener(new MeterCache(new SimpleMeterRegistry()), executorService,
+        new DefaultTasParsedQueryRegistry(), "benchmarkdb", entryPointsProperties, new DefaultTasQueryParsingListener(entryPointsProperties),
+        new DefaultTasQueryParsingInterceptor());
+    connectionListener = listener.onGetConnection(new GetConnectionEvent());
+    event = new StatementExecuteEvent().setSql(sql).setInTransaction(true).setExecutionTimeNs(1_000_000);
+  }
+
+  @TearDown
+  public void tearDown() {
+    executorService.shutdown();
+  }
+
+  @Benchmark
+  public void cacheHit() {
+    connectionListener.onStatementExecute(event);
+  }
+
+  @Benchmark
+  public void cacheMiss(CacheInvalidation cacheInvalidation) {
+    connectionListener.onStatementExecute(event);
+  }
+
+  @State(Scope.Thread)
+  public static class CacheInvalidation {
+
+    @Setup(Level.Invocation)
+    public void invalidate(TasRegisterSqlBenchmark benchmark) {
+      benchmark.listener.sqlParseResultsCache.invalidateAll();
+    }
+  }
+}
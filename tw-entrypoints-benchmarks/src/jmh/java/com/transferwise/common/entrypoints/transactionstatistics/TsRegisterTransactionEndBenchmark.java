@@ -0,0 +1,60 @@
+package com.transferwise.common.entrypoints.transactionstatistics;
+
+import com.transferwise.common.baseutils.meters.cache.MeterCache;
+import com.transferwise.common.spyql.SpyqlTransactionDefinition;
+import com.transferwise.common.spyql.event.GetConnectionEvent;
+import com.transferwise.common.spyql.event.SpyqlTransaction;
+import com.transferwise.common.spyql.event.TransactionCommitEvent;
+import com.transferwise.common.spyql.listener.SpyqlConnectionListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TS handling of a transaction commit, which ends up in `registerTransactionEnd`.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TsRegisterTransactionEndBenchmark {
+
+  private SpyqlConnectionListener connectionListener;
+  private TransactionCommitEvent transactionCommitEvent;
+
+  @Setup
+  public void setup() {
+    var listener = new TransactionsStatisticsSpyqlListener(new MeterCache(new SimpleMeterRegistry()), "benchmarkdb");
+    connectionListener = listener.onGetConnection(new GetConnectionEvent());
+
+    var definition = new SpyqlTransactionDefinition();
+    definition.setName("TransferService.createTransfer");
+    definition.setReadOnly(false);
+    definition.setIsolationLevel(Connection.TRANSACTION_READ_COMMITTED);
+    definition.setEntryPointGroup("Web");
+    definition.setEntryPointName("/v1/transfers");
+    definition.setEntryPointOwner("payments");
+
+    var startTime = Instant.now();
+    var transaction = new SpyqlTransaction().setDefinition(definition).setStartTime(startTime).setEndTime(startTime.plusMillis(5));
+    transactionCommitEvent = new TransactionCommitEvent().setTransaction(transaction).setExecutionTimeNs(1_000_000);
+  }
+
+  @Benchmark
+  public void registerTransactionEnd() {
+    connectionListener.onTransactionCommit(transactionCommitEvent);
+  }
+}
@@ -6,25 +6,34 @@ import com.transferwise.common.baseutils.meters.cache.IMeterCache;
 import com.transferwise.common.baseutils.meters.cache.MeterCache;
 import com.transferwise.common.context.TwContext;
 import com.transferwise.common.entrypoints.databaseaccessstatistics.DasMeterFilter;
+import com.transferwise.common.entrypoints.databaseaccessstatistics.DasUnknownCallSites;
 import com.transferwise.common.entrypoints.databaseaccessstatistics.DasUnknownCallsCollector;
 import com.transferwise.common.entrypoints.databaseaccessstatistics.DatabaseAccessStatisticsBeanPostProcessor;
 import com.transferwise.common.entrypoints.databaseaccessstatistics.DatabaseAccessStatisticsEntryPointInterceptor;
 import com.transferwise.common.entrypoints.executionstatistics.EsMeterFilter;
 import com.transferwise.common.entrypoints.executionstatistics.ExecutionStatisticsEntryPointInterceptor;
+import com.transferwise.common.entrypoints.executionstatistics.InFlightExecutions;
 import com.transferwise.common.entrypoints.tableaccessstatistics.DefaultTasParsedQueryRegistry;
 import com.transferwise.common.entrypoints.tableaccessstatistics.DefaultTasQueryParsingInterceptor;
 import com.transferwise.common.entrypoints.tableaccessstatistics.DefaultTasQueryParsingListener;
+import com.transferwise.common.entrypoints.tableaccessstatistics.SlowestStatements;
+import com.transferwise.common.entrypoints.tableaccessstatistics.SlowestStatementsEndpoint;
 import com.transferwise.common.entrypoints.tableaccessstatistics.TableAccessStatisticsBeanPostProcessor;
+import com.transferwise.common.entrypoints.tableaccessstatistics.TableAccessStatisticsEntryPointInterceptor;
 import com.transferwise.common.entrypoints.tableaccessstatistics.TasFlywayConfigurationCustomizer;
 import com.transferwise.common.entrypoints.tableaccessstatistics.TasMeterFilter;
+import com.transferwise.common.entrypoints.tableaccessstatistics.TasParseResultsSnapshotter;
 import com.transferwise.common.entrypoints.tableaccessstatistics.TasParsedQueryRegistry;
 import com.transferwise.common.entrypoints.tableaccessstatistics.TasQueryParsingInterceptor;
 import com.transferwise.common.entrypoints.tableaccessstatistics.TasQueryParsingListener;
+import com.transferwise.common.entrypoints.transactionstatistics.LongTransactionsWatchdog;
+import com.transferwise.common.entrypoints.transactionstatistics.OpenTransactions;
 import com.transferwise.common.entrypoints.transactionstatistics.TransactionStatisticsBeanPostProcessor;
 import com.transferwise.common.entrypoints.transactionstatistics.TsMeterFilter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.config.MeterFilter;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -52,8 +61,9 @@ public class EntryPointsAutoConfiguration {
   @Bean
   @ConditionalOnMissingBean
   @ConditionalOnProperty(name = "tw-entrypoints.das.enabled", havingValue = "true", matchIfMissing = true)
-  public DatabaseAccessStatisticsEntryPointInterceptor twEntryPointsDatabaseAccessStatisticsEntryPointInterceptor(IMeterCache meterCache) {
-    DatabaseAccessStatisticsEntryPointInterceptor interceptor = new DatabaseAccessStatisticsEntryPointInterceptor(meterCache);
+  public DatabaseAccessStatisticsEntryPointInterceptor twEntryPointsDatabaseAccessStatisticsEntryPointInterceptor(IMeterCache meterCache,
+      EntryPointsProperties entryPointsProperties) {
+    DatabaseAccessStatisticsEntryPointInterceptor interceptor = new DatabaseAccessStatisticsEntryPointInterceptor(meterCache, entryPointsProperties);
     TwContext.addExecutionInterceptor(interceptor);
     return interceptor;
   }
@@ -61,8 +71,15 @@ public class EntryPointsAutoConfiguration {
   @Bean
   @ConditionalOnProperty(name = "tw-entrypoints.das.enabled", havingValue = "true", matchIfMissing = true)
   @ConditionalOnMissingBean
-  public static DatabaseAccessStatisticsBeanPostProcessor twEntryPointsDatabaseAccessStatisticsBeanPostProcessor() {
-    return new DatabaseAccessStatisticsBeanPostProcessor();
+  public static DatabaseAccessStatisticsBeanPostProcessor twEntryPointsDatabaseAccessStatisticsBeanPostProcessor(BeanFactory beanFactory) {
+    return new DatabaseAccessStatisticsBeanPostProcessor(beanFactory);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "tw-entrypoints.das.unknown-call-sites.enabled", havingValue = "true")
+  @ConditionalOnMissingBean
+  public DasUnknownCallSites twEntryPointsDasUnknownCallSites(EntryPointsProperties entryPointsProperties, IMeterCache meterCache) {
+    return new DasUnknownCallSites(entryPointsProperties, meterCache);
   }
 
 
@@ -79,6 +96,16 @@ public class EntryPointsAutoConfiguration {
     return new TableAccessStatisticsBeanPostProcessor(beanFactory);
   }
 
+  @Bean
+  @ConditionalOnProperty(name = "tw-entrypoints.tas.enabled", havingValue = "true", matchIfMissing = true)
+  @ConditionalOnMissingBean
+  public TableAccessStatisticsEntryPointInterceptor twEntryPointsTableAccessStatisticsEntryPointInterceptor(
+      EntryPointsProperties entryPointsProperties) {
+    TableAccessStatisticsEntryPointInterceptor interceptor = new TableAccessStatisticsEntryPointInterceptor(entryPointsProperties);
+    TwContext.addExecutionInterceptor(interceptor);
+    return interceptor;
+  }
+
   @Bean
   @ConditionalOnProperty(name = "tw-entrypoints.tas.enabled", havingValue = "true", matchIfMissing = true)
   public MeterFilter twEntryPointsTableAccessStatisticsMeterFilter() {
@@ -107,6 +134,33 @@ public class EntryPointsAutoConfiguration {
     return new DefaultTasQueryParsingListener(entryPointsProperties);
   }
 
+  @Bean
+  @ConditionalOnProperty(name = "tw-entrypoints.tas.parse-results-snapshot.enabled", havingValue = "true")
+  @ConditionalOnMissingBean(TasParseResultsSnapshotter.class)
+  public TasParseResultsSnapshotter twEntryPointsTableAccessStatisticsParseResultsSnapshotter(EntryPointsProperties entryPointsProperties,
+      TasQueryParsingInterceptor tasQueryParsingInterceptor) {
+    return new TasParseResultsSnapshotter(entryPointsProperties, tasQueryParsingInterceptor);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "tw-entrypoints.tas.slowest-statements.enabled", havingValue = "true")
+  @ConditionalOnMissingBean
+  public SlowestStatements twEntryPointsTableAccessStatisticsSlowestStatements(EntryPointsProperties entryPointsProperties) {
+    return new SlowestStatements(entryPointsProperties);
+  }
+
+  @Configuration
+  @ConditionalOnProperty(name = "tw-entrypoints.tas.slowest-statements.enabled", havingValue = "true")
+  @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+  protected static class SlowestStatementsEndpointConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SlowestStatementsEndpoint twEntryPointsSlowestStatementsEndpoint(SlowestStatements slowestStatements) {
+      return new SlowestStatementsEndpoint(slowestStatements);
+    }
+  }
+
   @Configuration
   @ConditionalOnProperty(name = "tw-entrypoints.tas.enabled", havingValue = "true", matchIfMissing = true)
   @ConditionalOnClass(name = {"org.flywaydb.core.api.configuration.FluentConfiguration",
@@ -134,15 +188,40 @@ public class EntryPointsAutoConfiguration {
     return new TsMeterFilter();
   }
 
+  @Bean
+  @ConditionalOnProperty(name = "tw-entrypoints.ts.long-transactions.enabled", havingValue = "true")
+  @ConditionalOnMissingBean
+  public OpenTransactions twEntryPointsTransactionStatisticsOpenTransactions() {
+    return new OpenTransactions();
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "tw-entrypoints.ts.long-transactions.enabled", havingValue = "true")
+  @ConditionalOnMissingBean
+  public LongTransactionsWatchdog twEntryPointsTransactionStatisticsLongTransactionsWatchdog(IExecutorServicesProvider executorServicesProvider,
+      IMeterCache meterCache, EntryPointsProperties entryPointsProperties, OpenTransactions openTransactions) {
+    return new LongTransactionsWatchdog(executorServicesProvider, meterCache, entryPointsProperties, openTransactions);
+  }
+
   @Bean
   @ConditionalOnProperty(name = "tw-entrypoints.es.enabled", havingValue = "true", matchIfMissing = true)
   @ConditionalOnMissingBean
-  public ExecutionStatisticsEntryPointInterceptor twEntryPointsExecutionStatisticsEntryPointInterceptor(IMeterCache meterCache) {
-    ExecutionStatisticsEntryPointInterceptor interceptor = new ExecutionStatisticsEntryPointInterceptor(meterCache);
+  public ExecutionStatisticsEntryPointInterceptor twEntryPointsExecutionStatisticsEntryPointInterceptor(IMeterCache meterCache,
+      EntryPointsProperties entryPointsProperties, ObjectProvider<InFlightExecutions> inFlightExecutions) {
+    ExecutionStatisticsEntryPointInterceptor interceptor = new ExecutionStatisticsEntryPointInterceptor(meterCache, entryPointsProperties);
+    interceptor.setInFlightExecutions(inFlightExecutions.getIfAvailable());
     TwContext.addExecutionInterceptor(interceptor);
     return interceptor;
   }
 
+  @Bean
+  @ConditionalOnProperty(name = "tw-entrypoints.es.in-flight.enabled", havingValue = "true")
+  @ConditionalOnMissingBean
+  public InFlightExecutions twEntryPointsExecutionStatisticsInFlightExecutions(IExecutorServicesProvider executorServicesProvider,
+      IMeterCache meterCache, EntryPointsProperties entryPointsProperties) {
+    return new InFlightExecutions(executorServicesProvider, meterCache, entryPointsProperties);
+  }
+
   @Bean
   @ConditionalOnProperty(name = "tw-entrypoints.es.enabled", havingValue = "true", matchIfMissing = true)
   public MeterFilter twEntryPointsExecutionStatisticsMetricsFilter() {
@@ -150,6 +229,12 @@ public class EntryPointsAutoConfiguration {
   }
 
 
+  @Bean
+  @ConditionalOnProperty(name = "tw-entrypoints.cardinality-limits.enabled", havingValue = "true")
+  public CardinalityLimitingMeterFilter twEntryPointsCardinalityLimitingMeterFilter(EntryPointsProperties entryPointsProperties) {
+    return new CardinalityLimitingMeterFilter(entryPointsProperties);
+  }
+
   @Bean
   @ConditionalOnMissingBean(IExecutorServicesProvider.class)
   public DefaultExecutorServicesProvider twDefaultExecutorServicesProvider() {
@@ -164,7 +249,10 @@ public class EntryPointsAutoConfiguration {
 
   @Bean
   @ConditionalOnMissingBean(DasUnknownCallsCollector.class)
-  public DasUnknownCallsCollector unknownCallsCollector(IExecutorServicesProvider executorServicesProvider, IMeterCache meterCache) {
-    return new DasUnknownCallsCollector(executorServicesProvider, meterCache);
+  public DasUnknownCallsCollector unknownCallsCollector(IExecutorServicesProvider executorServicesProvider, IMeterCache meterCache,
+      ObjectProvider<DasUnknownCallSites> unknownCallSites) {
+    var collector = new DasUnknownCallsCollector(executorServicesProvider, meterCache);
+    collector.setUnknownCallSites(unknownCallSites.getIfAvailable());
+    return collector;
   }
 }
@@ -3,6 +3,7 @@ package com.transferwise.common.entrypoints.databaseaccessstatistics;
 import com.transferwise.common.entrypoints.BaseEntryPointsBeanProcessor;
 import com.transferwise.common.spyql.SpyqlDataSource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.Value;
 
 @Slf4j
@@ -11,6 +12,12 @@ public class DatabaseAccessStatisticsBeanPostProcessor extends BaseEntryPointsBe
   @Value("${tw-entrypoints.das.strictMode:false}")
   private boolean strictMode;
 
+  private final BeanFactory beanFactory;
+
+  public DatabaseAccessStatisticsBeanPostProcessor(BeanFactory beanFactory) {
+    this.beanFactory = beanFactory;
+  }
+
   @Override
   protected void instrument(SpyqlDataSource spyqlDataSource, String databaseName) {
     boolean isAlreadyAttached = spyqlDataSource.getDataSourceListeners().stream().anyMatch(
@@ -19,7 +26,8 @@ public class DatabaseAccessStatisticsBeanPostProcessor extends BaseEntryPointsBe
     if (isAlreadyAttached) {
       return;
     }
-    spyqlDataSource.addListener(
-        new DatabaseAccessStatisticsSpyqlListener(databaseName, strictMode));
+    var listener = new DatabaseAccessStatisticsSpyqlListener(databaseName, strictMode);
+    listener.setUnknownCallSites(beanFactory.getBeanProvider(DasUnknownCallSites.class).getIfAvailable());
+    spyqlDataSource.addListener(listener);
   }
 }
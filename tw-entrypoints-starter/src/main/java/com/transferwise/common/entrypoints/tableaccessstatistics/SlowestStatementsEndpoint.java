@@ -0,0 +1,23 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * Shows the slowest statements of the rolling window, the slowest first.
+ */
+@Endpoint(id = "slowstatements")
+public class SlowestStatementsEndpoint {
+
+  private final SlowestStatements slowestStatements;
+
+  public SlowestStatementsEndpoint(SlowestStatements slowestStatements) {
+    this.slowestStatements = slowestStatements;
+  }
+
+  @ReadOperation
+  public List<SlowStatement> slowStatements() {
+    return slowestStatements.getStatements();
+  }
+}
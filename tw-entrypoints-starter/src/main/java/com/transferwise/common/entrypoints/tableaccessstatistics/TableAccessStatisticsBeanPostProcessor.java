@@ -36,8 +36,14 @@ public class TableAccessStatisticsBeanPostProcessor extends BaseEntryPointsBeanP
     var tasQueryParsingInterceptor = beanFactory.getBean(TasQueryParsingInterceptor.class);
     var tasQueryParsingListener = beanFactory.getBean(TasQueryParsingListener.class);
 
-    spyqlDataSource.addListener(
-        new TableAccessStatisticsSpyqlListener(meterCache, executorService, tableAccessStatisticsParsedQueryRegistry, databaseName,
-            entryPointsProperties, tasQueryParsingListener, tasQueryParsingInterceptor));
+    var listener = new TableAccessStatisticsSpyqlListener(meterCache, executorService, tableAccessStatisticsParsedQueryRegistry, databaseName,
+        entryPointsProperties, tasQueryParsingListener, tasQueryParsingInterceptor);
+    listener.setSlowestStatements(beanFactory.getBeanProvider(SlowestStatements.class).getIfAvailable());
+    spyqlDataSource.addListener(listener);
+
+    var parseResultsSnapshotter = beanFactory.getBeanProvider(TasParseResultsSnapshotter.class).getIfAvailable();
+    if (parseResultsSnapshotter != null) {
+      parseResultsSnapshotter.register(listener);
+    }
   }
 }
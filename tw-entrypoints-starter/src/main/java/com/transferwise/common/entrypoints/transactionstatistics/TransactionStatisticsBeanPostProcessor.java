@@ -24,6 +24,7 @@ public class TransactionStatisticsBeanPostProcessor extends BaseEntryPointsBeanP
 
     IMeterCache meterCache = beanFactory.getBean(IMeterCache.class);
     TransactionsStatisticsSpyqlListener listener = new TransactionsStatisticsSpyqlListener(meterCache, databaseName);
+    listener.setOpenTransactions(beanFactory.getBeanProvider(OpenTransactions.class).getIfAvailable());
     spyqlDataSource.addListener(listener);
   }
 }
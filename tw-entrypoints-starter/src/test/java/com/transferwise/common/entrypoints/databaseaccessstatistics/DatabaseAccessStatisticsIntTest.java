@@ -66,6 +66,9 @@ class DatabaseAccessStatisticsIntTest extends BaseIntTest {
     assertThat(((DistributionSummary) meters.get("Registered_Rollbacks")).mean()).isEqualTo(0);
     assertThat(((DistributionSummary) meters.get("Registered_AffectedRows")).count()).isEqualTo(1);
     assertThat(((DistributionSummary) meters.get("Registered_FetchedRows")).count()).isEqualTo(1);
+    assertThat(((Timer) meters.get("Registered_ConnectionAcquisitionTime")).count()).isEqualTo(1);
+    assertThat(((Timer) meters.get("Registered_ConnectionHoldTime")).mean(TimeUnit.NANOSECONDS))
+        .isGreaterThanOrEqualTo(((Timer) meters.get("Registered_TimeTaken")).mean(TimeUnit.NANOSECONDS));
 
     assertThat(((Counter) meters.get("Unknown_Commits")).count()).isEqualTo(0);
     assertThat(((Counter) meters.get("Unknown_NTQueries")).count()).isEqualTo(0);
@@ -1,20 +1,32 @@
 package com.transferwise.common.entrypoints.executionstatistics;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 import com.transferwise.common.context.TwContext;
 import com.transferwise.common.entrypoints.test.BaseIntTest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import javax.sql.DataSource;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 @Slf4j
 public class ExecutionStatisticIntTest extends BaseIntTest {
 
+  @Autowired
+  private DataSource dataSource;
+
   @Test
   void executionStatisticsAreGathered() {
     TwContext.current().createSubContext().asEntryPoint("Test", "myEntryPoint").execute(() -> log.info("I'm inside an entrypoint!"));
@@ -42,4 +54,59 @@ public class ExecutionStatisticIntTest extends BaseIntTest {
     assertThat(meters.get(0).getId().getTag("epGroup")).isEqualTo("Test");
     assertThat(((Timer) meters.get(0)).count()).isEqualTo(1);
   }
+
+  @Test
+  void resourceUsageIsGathered() {
+    TwContext.current().createSubContext().asEntryPoint("Test", "myBusyEntryPoint").execute(() -> {
+      var values = new ArrayList<String>();
+      for (int i = 0; i < 10_000; i++) {
+        values.add(String.valueOf(i));
+      }
+      log.info("Created {} values.", values.size());
+    });
+
+    var cpuTime = (Timer) meterRegistry.find("EntryPoints_Es_cpuTime").tag("epName", "myBusyEntryPoint").meter();
+    assertThat(cpuTime.count()).isEqualTo(1);
+    assertThat(cpuTime.totalTime(TimeUnit.NANOSECONDS)).isGreaterThan(0);
+
+    var allocatedBytes = (DistributionSummary) meterRegistry.find("EntryPoints_Es_allocatedBytes").tag("epName", "myBusyEntryPoint").meter();
+    assertThat(allocatedBytes.count()).isEqualTo(1);
+    assertThat(allocatedBytes.totalAmount()).isGreaterThan(10_000);
+  }
+
+  @Test
+  void inFlightExecutionsAreCounted() {
+    TwContext.current().createSubContext().asEntryPoint("Test", "myInFlightEntryPoint").execute(() -> {
+      var inFlight = (Gauge) meterRegistry.find("EntryPoints_Es_inFlight").tag("epName", "myInFlightEntryPoint").meter();
+      assertThat(inFlight.value()).isEqualTo(1);
+    });
+
+    var inFlight = (Gauge) meterRegistry.find("EntryPoints_Es_inFlight").tag("epName", "myInFlightEntryPoint").meter();
+    assertThat(inFlight.value()).isEqualTo(0);
+
+    var inFlightPeak = (Gauge) meterRegistry.find("EntryPoints_Es_inFlightPeak").tag("epName", "myInFlightEntryPoint").meter();
+    await().atMost(Duration.ofSeconds(5)).until(() -> inFlightPeak.value() == 1);
+    // Reading the gauge does not reset it.
+    assertThat(inFlightPeak.value()).isEqualTo(1);
+    // The next window starts from the executions running right now.
+    await().atMost(Duration.ofSeconds(5)).until(() -> inFlightPeak.value() == 0);
+  }
+
+  @Test
+  void databaseTimeSharesAreGathered() {
+    var jdbcTemplate = new JdbcTemplate(dataSource);
+    TwContext.current().createSubContext().asEntryPoint("Test", "myEntryPoint").execute(() -> {
+      jdbcTemplate.queryForObject("select 1", Integer.class);
+    });
+
+    var databaseTimeShare = (DistributionSummary) meterRegistry.find("EntryPoints_Es_databaseTimeShare").tag("epName", "myEntryPoint")
+        .meter();
+    assertThat(databaseTimeShare.count()).isEqualTo(1);
+    assertThat(databaseTimeShare.totalAmount()).isGreaterThan(0).isLessThanOrEqualTo(1);
+
+    var connectionWaitShare = (DistributionSummary) meterRegistry.find("EntryPoints_Es_connectionWaitShare").tag("epName", "myEntryPoint")
+        .meter();
+    assertThat(connectionWaitShare.count()).isEqualTo(1);
+    assertThat(connectionWaitShare.totalAmount()).isGreaterThanOrEqualTo(0).isLessThan(1);
+  }
 }
@@ -1,9 +1,11 @@
 package com.transferwise.common.entrypoints.tableaccessstatistics;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 import com.transferwise.common.baseutils.ExceptionUtils;
 import com.transferwise.common.context.TwContext;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
 import com.transferwise.common.entrypoints.tableaccessstatistics.ParsedQuery.SqlOperation;
 import com.transferwise.common.entrypoints.test.BaseIntTest;
 import com.transferwise.common.spyql.SpyqlDataSource;
@@ -11,6 +13,7 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -21,6 +24,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcTemplate;
 
@@ -32,12 +36,18 @@ class TableAccessStatisticsIntTest extends BaseIntTest {
   @Autowired
   private DataSource dataSource;
 
+  @Autowired
+  private EntryPointsProperties entryPointsProperties;
+
   @Autowired
   private DefaultTasParsedQueryRegistry tableAccessStatisticsParsedQueryRegistry;
 
   @Autowired
   private TasFlywayConfigurationCustomizer tasFlywayConfigurationCustomizer;
 
+  @Autowired
+  private SlowestStatementsEndpoint slowestStatementsEndpoint;
+
   private JdbcTemplate jdbcTemplate;
 
   @BeforeEach
@@ -196,6 +206,164 @@ class TableAccessStatisticsIntTest extends BaseIntTest {
     assertThat(((Gauge) getMeter("EntryPoints_Tas_SqlParseResultsCache_size")).value()).isEqualTo(1);
   }
 
+  @Test
+  void accessesAreAttributedAfterAsyncParsing() {
+    entryPointsProperties.getTas().getSqlParser().setAsyncParsingEnabled(true);
+    try {
+      TwContext.current().createSubContext().asEntryPoint("Test", "myEntryPoint").execute(() -> {
+        jdbcTemplate.update("update table_a set version=3");
+        jdbcTemplate.update("update table_a set version=3");
+      });
+
+      await().atMost(Duration.ofSeconds(5)).until(() -> getTableAccessMeters().size() == 1
+          && ((Counter) getTableAccessMeters().get(0)).count() == 2);
+
+      var counter = (Counter) getTableAccessMeters().get(0);
+      assertThat(counter.getId().getTag("operation")).isEqualTo("update");
+      assertThat(counter.getId().getTag("table")).isEqualTo("table_a");
+      assertThat(counter.getId().getTag("epName")).isEqualTo("myEntryPoint");
+      assertThat(counter.getId().getTag("epGroup")).isEqualTo("Test");
+    } finally {
+      entryPointsProperties.getTas().getSqlParser().setAsyncParsingEnabled(false);
+    }
+  }
+
+  @Test
+  void accessesAreCountedWhenEntryPointEnds() {
+    TwContext.current().createSubContext().asEntryPoint("Test", "myEntryPoint").execute(() -> {
+      for (int i = 0; i < 3; i++) {
+        jdbcTemplate.update("update table_a set version=5");
+      }
+      jdbcTemplate.update("update table_b set version=5");
+
+      assertThat(getTableAccessMeters()).allSatisfy(meter -> assertThat(((Counter) meter).count()).isEqualTo(0));
+    });
+
+    var meters = getTableAccessMeters();
+    assertThat(meters.size()).isEqualTo(2);
+    assertThat(meters.stream().mapToDouble(meter -> ((Counter) meter).count()).sum()).isEqualTo(4);
+  }
+
+  @Test
+  void sampledCountersAreScaled() {
+    entryPointsProperties.getTas().getSampling().getEntryPoints().put("mySampledEntryPoint", 10);
+    try {
+      TwContext.current().createSubContext().asEntryPoint("Test", "mySampledEntryPoint").execute(() -> {
+        for (int i = 0; i < 200; i++) {
+          jdbcTemplate.update("update table_a set version=4");
+        }
+      });
+
+      var counter = (Counter) getTableAccessMeters().get(0);
+      assertThat(counter.count()).isGreaterThan(0);
+      assertThat(counter.count() % 10).isEqualTo(0);
+
+      var firstTableAccessMeter = (Timer) getMeter("EntryPoints_Tas_FirstTableAccess");
+      assertThat(firstTableAccessMeter.count() * 10).isEqualTo((long) counter.count());
+    } finally {
+      entryPointsProperties.getTas().getSampling().getEntryPoints().clear();
+    }
+  }
+
+  @Test
+  void repeatedQueriesAreDetected() {
+    var repeatedQueries = entryPointsProperties.getDas().getRepeatedQueries();
+    repeatedQueries.setEnabled(true);
+    repeatedQueries.setThreshold(5);
+    try {
+      TwContext.current().createSubContext().asEntryPoint("Test", "myRepeatingEntryPoint").execute(() -> {
+        for (int i = 0; i < 20; i++) {
+          jdbcTemplate.update("update table_a set version=" + i);
+        }
+        for (int i = 0; i < 5; i++) {
+          jdbcTemplate.update("update table_b set version=" + i);
+        }
+      });
+
+      var counter = getCounter("EntryPoints_Das_RepeatedQueries");
+      assertThat(counter.getId().getTag("table")).isEqualTo("table_a");
+      assertThat(counter.getId().getTag("epName")).isEqualTo("myRepeatingEntryPoint");
+      assertThat(counter.count()).isEqualTo(1);
+    } finally {
+      repeatedQueries.setEnabled(false);
+      repeatedQueries.setThreshold(50);
+    }
+  }
+
+  @Test
+  void slowestStatementsAreCollected() {
+    TwContext.current().createSubContext().asEntryPoint("Test", "mySlowEntryPoint").execute(() -> {
+      jdbcTemplate.queryForObject("select sleep(0.05), (select count(*) from table_a where id = 5)", Long.class);
+    });
+
+    var slowStatements = slowestStatementsEndpoint.slowStatements().stream()
+        .filter(s -> "mySlowEntryPoint".equals(s.getEntryPointName())).collect(Collectors.toList());
+    assertThat(slowStatements.size()).isEqualTo(1);
+    var slowStatement = slowStatements.get(0);
+    assertThat(slowStatement.getDatabase()).isEqualTo("mydb");
+    assertThat(slowStatement.getTables()).containsExactly("table_a");
+    assertThat(slowStatement.getSql()).doesNotContain("5");
+    assertThat(slowStatement.getFingerprint()).hasSize(32);
+    assertThat(slowStatement.getExecutionTimeNs()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  void slowestStatementsAreCollectedRegardlessOfSampling() {
+    TwContext.current().createSubContext().asEntryPoint("Test", "myUnsampledEntryPoint").execute(() -> {
+      jdbcTemplate.queryForObject("select sleep(0.05), (select count(*) from table_a where id = 6)", Long.class);
+    });
+
+    var slowStatements = slowestStatementsEndpoint.slowStatements().stream()
+        .filter(s -> "myUnsampledEntryPoint".equals(s.getEntryPointName())).collect(Collectors.toList());
+    assertThat(slowStatements.size()).isEqualTo(1);
+    assertThat(slowStatements.get(0).getTables()).containsExactly("table_a");
+    assertThat(meterRegistry.find("EntryPoints_Tas_TableAccess").tag("epName", "myUnsampledEntryPoint").counter()).isNull();
+  }
+
+  @Test
+  void statementFailuresAreClassified() {
+    try {
+      TwContext.current().createSubContext().asEntryPoint("Test", "myFailingEntryPoint").execute(() -> {
+        jdbcTemplate.update("insert into table_a (id, version) values (1000, 1)");
+        try {
+          jdbcTemplate.update("insert into table_a (id, version) values (1000, 1)");
+        } catch (DataAccessException ignored) {
+          // ignored
+        }
+      });
+
+      var counter = getCounter("EntryPoints_Tas_StatementFailures");
+      assertThat(counter.getId().getTag("failureCategory")).isEqualTo("constraint");
+      assertThat(counter.getId().getTag("operation")).isEqualTo("insert");
+      assertThat(counter.getId().getTag("table")).isEqualTo("table_a");
+      assertThat(counter.getId().getTag("epName")).isEqualTo("myFailingEntryPoint");
+      assertThat(counter.count()).isEqualTo(1);
+    } finally {
+      jdbcTemplate.update("delete from table_a where id = 1000");
+    }
+  }
+
+  @Test
+  void statementFailuresAreNotSampled() {
+    try {
+      TwContext.current().createSubContext().asEntryPoint("Test", "myUnsampledEntryPoint").execute(() -> {
+        jdbcTemplate.update("insert into table_a (id, version) values (1001, 1)");
+        try {
+          jdbcTemplate.update("insert into table_a (id, version) values (1001, 1)");
+        } catch (DataAccessException ignored) {
+          // ignored
+        }
+      });
+
+      var counter = getCounter("EntryPoints_Tas_StatementFailures");
+      assertThat(counter.getId().getTag("epName")).isEqualTo("myUnsampledEntryPoint");
+      assertThat(counter.getId().getTag("table")).isEqualTo("table_a");
+      assertThat(counter.count()).isEqualTo(1);
+    } finally {
+      jdbcTemplate.update("delete from table_a where id = 1001");
+    }
+  }
+
   @Test
   void failedSqlParsesGetRegistered() {
     try {
@@ -1,14 +1,24 @@
 package com.transferwise.common.entrypoints.transactionstatistics;
 
+import static com.transferwise.common.entrypoints.transactionstatistics.TransactionsStatisticsSpyqlListener.METRIC_TRANSACTION_ACTIVE;
 import static com.transferwise.common.entrypoints.transactionstatistics.TransactionsStatisticsSpyqlListener.METRIC_TRANSACTION_COMPLETION;
 import static com.transferwise.common.entrypoints.transactionstatistics.TransactionsStatisticsSpyqlListener.METRIC_TRANSACTION_FINALIZATION;
+import static com.transferwise.common.entrypoints.transactionstatistics.TransactionsStatisticsSpyqlListener.METRIC_TRANSACTION_FIRST_STATEMENT;
+import static com.transferwise.common.entrypoints.transactionstatistics.TransactionsStatisticsSpyqlListener.METRIC_TRANSACTION_IDLE;
 import static com.transferwise.common.entrypoints.transactionstatistics.TransactionsStatisticsSpyqlListener.METRIC_TRANSACTION_START;
+import static com.transferwise.common.entrypoints.transactionstatistics.TransactionsStatisticsSpyqlListener.METRIC_TRANSACTION_STATEMENTS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
+import com.transferwise.common.baseutils.ExceptionUtils;
 import com.transferwise.common.baseutils.transactionsmanagement.ITransactionsHelper;
 import com.transferwise.common.entrypoints.test.BaseIntTest;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.TimeGauge;
 import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 import javax.sql.DataSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -72,6 +82,51 @@ public class TransactionStatisticsIntTest extends BaseIntTest {
     assertThat(finishedTimer.takeSnapshot().histogramCounts().length).isEqualTo(8);
   }
 
+  @Test
+  public void transactionTimelineGetsRegistered() {
+    transactionsHelper.withTransaction().call(() -> {
+      jdbcTemplate.update("update table_a set version=2");
+      ExceptionUtils.doUnchecked(() -> Thread.sleep(100));
+      jdbcTemplate.update("update table_a set version=3");
+      return null;
+    });
+
+    var statementsSummary = meterRegistry.get(METRIC_TRANSACTION_STATEMENTS).summary();
+    assertThat(statementsSummary.count()).isEqualTo(1);
+    assertThat(statementsSummary.totalAmount()).isEqualTo(2);
+    assertThat(statementsSummary.getId().getTag("epName")).isEqualTo("Generic");
+    assertThat(statementsSummary.getId().getTag("resolution")).isEqualTo("commit");
+
+    var idleTimer = meterRegistry.get(METRIC_TRANSACTION_IDLE).timer();
+    assertThat(idleTimer.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(100);
+
+    var activeTimer = meterRegistry.get(METRIC_TRANSACTION_ACTIVE).timer();
+    assertThat(activeTimer.count()).isEqualTo(1);
+    assertThat(activeTimer.totalTime(TimeUnit.MILLISECONDS)).isLessThan(idleTimer.totalTime(TimeUnit.MILLISECONDS));
+
+    assertThat(meterRegistry.get(METRIC_TRANSACTION_FIRST_STATEMENT).timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  public void longTransactionsAreVisibleWhileOpen() {
+    transactionsHelper.withTransaction().call(() -> {
+      jdbcTemplate.update("update table_a set version=2");
+
+      await().atMost(Duration.ofSeconds(5)).until(() -> {
+        var gauge = meterRegistry.find(LongTransactionsWatchdog.GAUGE_LONG_RUNNING_TRANSACTIONS).tag("epName", "Generic").gauge();
+        return gauge != null && gauge.value() == 1;
+      });
+      TimeGauge ageGauge = meterRegistry.get(LongTransactionsWatchdog.GAUGE_OLDEST_OPEN_TRANSACTION_AGE).tag("db", "mydb").timeGauge();
+      assertThat(ageGauge.value(TimeUnit.MILLISECONDS)).isGreaterThan(200);
+      return null;
+    });
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> {
+      Gauge gauge = meterRegistry.get(LongTransactionsWatchdog.GAUGE_LONG_RUNNING_TRANSACTIONS).tag("epName", "Generic").gauge();
+      return gauge.value() == 0;
+    });
+  }
+
   @Test
   public void rollbackGetsRegistered() {
     try {
@@ -0,0 +1,152 @@
+package com.transferwise.common.entrypoints;
+
+import com.transferwise.common.entrypoints.EntryPointsProperties.CardinalityLimits.Limit;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Limits how many series each of the library's metrics can have.
+ *
+ * <p>Series over the limit get their folded tag replaced with {@link #OTHER}, so they are merged into one series per combination of the
+ * other tags. Those merged series are always allowed, so a metric can go over its limit by them.
+ *
+ * <p>Series are counted by meters, histogram buckets of a timer are not counted separately.
+ *
+ * <p>Gauges, time gauges included, are never folded. Those are bound to the object of their first registrant, so a folded series would
+ * show the value of just one of the folded ones, and removing it would remove it for all of them. Function counters and timers can not
+ * be told apart from the ids of counters and timers, so the library does not use those for the limited metrics.
+ */
+@Slf4j
+public class CardinalityLimitingMeterFilter implements MeterFilter, MeterBinder {
+
+  /**
+   * How many distinct series were folded into an {@link #OTHER} series.
+   */
+  public static final String COUNTER_FOLDED_SERIES = "EntryPoints_Cardinality_FoldedSeries";
+  public static final String TAG_METRIC = "metric";
+  public static final String OTHER = "other";
+
+  /**
+   * Application's own metrics are never limited.
+   */
+  private static final List<String> LIBRARY_METRIC_PREFIXES = List.of("EntryPoints_", "database_transaction_");
+
+  private final List<Limit> limits;
+  private final Map<String, Optional<LimitedMetric>> limitedMetrics = new ConcurrentHashMap<>();
+  private volatile MeterRegistry meterRegistry;
+
+  public CardinalityLimitingMeterFilter(EntryPointsProperties entryPointsProperties) {
+    this.limits = entryPointsProperties.getCardinalityLimits().getLimits();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    this.meterRegistry = registry;
+    registry.config().onMeterRemoved(this::forget);
+
+    // Metrics folded before the registry was known.
+    limitedMetrics.forEach((name, limitedMetric) -> limitedMetric.filter(m -> m.warned)
+        .ifPresent(m -> registerFoldedSeriesCounter(registry, name, m)));
+  }
+
+  @Override
+  public Meter.Id map(Meter.Id id) {
+    final LimitedMetric limitedMetric = getLimitedMetric(id.getName());
+    if (limitedMetric == null || id.getType() == Meter.Type.GAUGE || id.getTag(limitedMetric.limit.getFoldedTag()) == null
+        || limitedMetric.series.contains(id)) {
+      return id;
+    }
+
+    if (limitedMetric.seriesCount.incrementAndGet() <= limitedMetric.limit.getMaxSeries()) {
+      if (!limitedMetric.series.add(id)) {
+        limitedMetric.seriesCount.decrementAndGet();
+      }
+      return id;
+    }
+    limitedMetric.seriesCount.decrementAndGet();
+
+    final Meter.Id foldedId = id.withTag(Tag.of(limitedMetric.limit.getFoldedTag(), OTHER));
+    if (limitedMetric.series.add(foldedId)) {
+      limitedMetric.seriesCount.incrementAndGet();
+    }
+    // The same series can come again, e.g. after it was removed from a meter cache.
+    if (limitedMetric.foldedSeries.add(id)) {
+      registerFoldedSeries(limitedMetric, id);
+    }
+    return foldedId;
+  }
+
+  protected void registerFoldedSeries(LimitedMetric limitedMetric, Meter.Id id) {
+    if (!limitedMetric.warned) {
+      limitedMetric.warned = true;
+      log.warn("Metric '{}' has reached its limit of {} series. New series get tag '{}' replaced with '{}', starting from '{}'.",
+          id.getName(), limitedMetric.limit.getMaxSeries(), limitedMetric.limit.getFoldedTag(), OTHER, id);
+
+      final MeterRegistry registry = meterRegistry;
+      if (registry != null) {
+        registerFoldedSeriesCounter(registry, id.getName(), limitedMetric);
+      }
+    }
+  }
+
+  /**
+   * Registering is idempotent, so a race with {@link #bindTo(MeterRegistry)} can not register it twice.
+   */
+  protected void registerFoldedSeriesCounter(MeterRegistry registry, String metricName, LimitedMetric limitedMetric) {
+    FunctionCounter.builder(COUNTER_FOLDED_SERIES, limitedMetric.foldedSeries, Set::size).tags(TAG_METRIC, metricName).register(registry);
+  }
+
+  protected void forget(Meter meter) {
+    final Meter.Id id = meter.getId();
+    final LimitedMetric limitedMetric = getLimitedMetric(id.getName());
+    if (limitedMetric != null && limitedMetric.series.remove(id)) {
+      limitedMetric.seriesCount.decrementAndGet();
+    }
+  }
+
+  protected LimitedMetric getLimitedMetric(String name) {
+    return limitedMetrics.computeIfAbsent(name, this::resolveLimitedMetric).orElse(null);
+  }
+
+  protected Optional<LimitedMetric> resolveLimitedMetric(String name) {
+    if (LIBRARY_METRIC_PREFIXES.stream().noneMatch(name::startsWith)) {
+      return Optional.empty();
+    }
+    return limits.stream().filter(limit -> matches(limit.getMetricName(), name)).findFirst().map(LimitedMetric::new);
+  }
+
+  private boolean matches(String glob, String value) {
+    return Pattern.compile(Arrays.stream(glob.split("\\*", -1)).map(Pattern::quote).collect(Collectors.joining(".*"))).matcher(value)
+        .matches();
+  }
+
+  protected static class LimitedMetric {
+
+    private final Limit limit;
+    private final Set<Meter.Id> series = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger seriesCount = new AtomicInteger();
+    /**
+     * Original ids of the folded series. Never bigger than what the meter caches in front of the registry are holding anyway.
+     */
+    private final Set<Meter.Id> foldedSeries = ConcurrentHashMap.newKeySet();
+    private volatile boolean warned;
+
+    private LimitedMetric(Limit limit) {
+      this.limit = limit;
+    }
+  }
+}
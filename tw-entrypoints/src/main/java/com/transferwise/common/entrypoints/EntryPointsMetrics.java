@@ -11,6 +11,7 @@ public final class EntryPointsMetrics {
   public static final String TAG_OPERATION = "operation";
   public static final String TAG_IN_TRANSACTION = "inTransaction";
   public static final String TAG_SUCCESS = "success";
+  public static final String TAG_FAILURE_CATEGORY = "failureCategory";
   public static final String TAG_TRANSACTION_NAME = "transactionName";
   public static final String TAG_READ_ONLY = "readOnly";
   public static final String TAG_ISOLATION_LEVEL = "isolationLevel";
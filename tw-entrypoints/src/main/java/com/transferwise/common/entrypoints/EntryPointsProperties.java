@@ -1,6 +1,11 @@
 package com.transferwise.common.entrypoints;
 
+import com.transferwise.common.context.TwContextMetricsTemplate;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import lombok.Data;
 
 @Data
@@ -10,17 +15,188 @@ public class EntryPointsProperties {
   private Es es = new Es();
   private Tas tas = new Tas();
   private Ts ts = new Ts();
+  private CardinalityLimits cardinalityLimits = new CardinalityLimits();
 
   @Data
   public static class Das {
 
+    /**
+     * Frameworks and libraries, which are not considered to be application code, when resolving call sites.
+     */
+    public static final List<String> DEFAULT_CALL_SITE_EXCLUDED_PACKAGES = List.of("java.", "javax.", "jakarta.", "jdk.", "sun.", "com.sun.",
+        "org.springframework.", "org.hibernate.", "org.jooq.", "com.zaxxer.hikari.", "org.flywaydb.", "org.mariadb.", "com.mysql.",
+        "org.postgresql.", "com.transferwise.common.spyql.", "com.transferwise.common.entrypoints.", "com.transferwise.common.context.",
+        "io.micrometer.", "net.sf.jsqlparser.");
+
     private boolean enabled = true;
+    private UnknownCallSites unknownCallSites = new UnknownCallSites();
+    private RepeatedQueries repeatedQueries = new RepeatedQueries();
+    private ConnectionLeakDetection connectionLeakDetection = new ConnectionLeakDetection();
+    /**
+     * Checked in order, the first one matching an entrypoint applies to it.
+     */
+    private List<Budget> budgets = new ArrayList<>();
+    /**
+     * At most one budget violation is logged per that interval.
+     */
+    private Duration budgetViolationsLogInterval = Duration.ofMinutes(1);
+
+    /**
+     * Samples the stacks of statements executed outside of entrypoints, to find out where those are coming from.
+     */
+    @Data
+    public static class UnknownCallSites {
+
+      private boolean enabled = false;
+      /**
+       * Over all databases.
+       */
+      private int samplesPerSecond = 10;
+      /**
+       * How many of the top application frames make up a call site.
+       */
+      private int framesCount = 3;
+      /**
+       * Call sites over that, within one report interval, are counted as `other`.
+       */
+      private int maxCallSites = 1000;
+      /**
+       * How many of the most sampled call sites are exported as metrics and logged.
+       */
+      private int topK = 10;
+      /**
+       * How many distinct call sites can get their own series over the application's lifetime, later ones are counted as `other`.
+       */
+      private int maxExportedCallSites = 100;
+      private Duration reportInterval = Duration.ofMinutes(1);
+      /**
+       * Frames of classes starting with those, are not considered to be application frames.
+       */
+      private List<String> excludedPackages = new ArrayList<>(DEFAULT_CALL_SITE_EXCLUDED_PACKAGES);
+    }
+
+    /**
+     * Captures where each connection in an entrypoint was got, and reports the ones still open when the entrypoint ends.
+     */
+    @Data
+    public static class ConnectionLeakDetection {
+
+      private boolean enabled = false;
+      /**
+       * How many of the top application frames make up an acquisition site.
+       */
+      private int framesCount = 5;
+      /**
+       * How many distinct acquisition sites can get their own series over the application's lifetime, later ones are counted as `other`.
+       */
+      private int maxExportedAcquisitionSites = 100;
+      /**
+       * At most one leaked connection is logged per that interval.
+       */
+      private Duration logInterval = Duration.ofMinutes(1);
+      /**
+       * Frames of classes starting with those, are not considered to be application frames.
+       */
+      private List<String> excludedPackages = new ArrayList<>(DEFAULT_CALL_SITE_EXCLUDED_PACKAGES);
+    }
+
+    /**
+     * Detects statement shapes executed too many times in one entrypoint, which usually means an N+1 problem.
+     *
+     * <p>Statement shapes and their tables are resolved by the table access statistics, so those have to be enabled as well.
+     */
+    @Data
+    public static class RepeatedQueries {
+
+      private boolean enabled = false;
+      /**
+       * A shape executed more times than that, in one entrypoint, is reported.
+       */
+      private int threshold = 50;
+      /**
+       * How many distinct shapes are tracked per entrypoint, others are ignored.
+       */
+      private int maxShapes = 256;
+      /**
+       * At most one log line with a statement sample is written per that interval.
+       */
+      private Duration logInterval = Duration.ofMinutes(1);
+    }
+
+    /**
+     * Database access allowed for one entrypoint execution, over all databases.
+     *
+     * <p>Limits not set are not checked.
+     */
+    @Data
+    public static class Budget {
+
+      /**
+       * `*` matches any characters.
+       */
+      private String entryPointGroup = "*";
+      /**
+       * `*` matches any characters.
+       */
+      private String entryPointName = "*";
+      private Integer maxQueries;
+      private Duration maxTimeInDatabase;
+      /**
+       * Commits and rollbacks.
+       */
+      private Integer maxTransactions;
+      private Mode mode = Mode.METRIC;
+
+      /**
+       * Each mode does also what the previous ones do.
+       */
+      public enum Mode {
+        /**
+         * Count the violations in `EntryPoints_Das_BudgetViolations`.
+         */
+        METRIC,
+        /**
+         * Log the violations, throttled, with a sample of the statement going over the budget.
+         */
+        LOG,
+        /**
+         * Throw `DatabaseAccessBudgetExceededException`, when the entrypoint ends. Meant for test suites.
+         */
+        FAIL
+      }
+    }
   }
 
   @Data
   public static class Es {
 
     private boolean enabled = true;
+    /**
+     * Record the CPU time of the thread executing the entrypoint, into `EntryPoints_Es_cpuTime`.
+     */
+    private boolean cpuTimeEnabled = false;
+    /**
+     * Record the heap bytes allocated by the thread executing the entrypoint, into `EntryPoints_Es_allocatedBytes`.
+     */
+    private boolean allocatedBytesEnabled = false;
+    private InFlight inFlight = new InFlight();
+
+    /**
+     * Gauges of the executions of each entrypoint running right now, and of their peak in the previous peak window.
+     */
+    @Data
+    public static class InFlight {
+
+      private boolean enabled = false;
+      /**
+       * Gauges of an entrypoint without any executions for that long, are removed.
+       */
+      private Duration idleTimeout = Duration.ofMinutes(10);
+      /**
+       * The peak gauge shows the peak of the previous window. Idle gauges are removed at the end of every window as well.
+       */
+      private Duration peakWindow = Duration.ofMinutes(1);
+    }
   }
 
   @Data
@@ -29,6 +205,19 @@ public class EntryPointsProperties {
     private boolean enabled = true;
     private SqlParser sqlParser = new SqlParser();
     private FlywayIntegration flywayIntegration = new FlywayIntegration();
+    private ParseResultsSnapshot parseResultsSnapshot = new ParseResultsSnapshot();
+    private Sampling sampling = new Sampling();
+    private SlowestStatements slowestStatements = new SlowestStatements();
+    /**
+     * How many resolved meter bundles, one per parsed query, entrypoint, transaction and success combination, are kept.
+     */
+    private int tableAccessMetersCacheSize = 10_000;
+    /**
+     * Collect table access counts per entrypoint and increment the counters once, when the entrypoint ends.
+     *
+     * <p>Statements outside of entrypoints are always counted immediately.
+     */
+    private boolean entryPointBatchingEnabled = true;
 
     @Data
     public static class SqlParser {
@@ -40,6 +229,43 @@ public class EntryPointsProperties {
        */
       private Duration parseDurationWarnThreshold = Duration.ofSeconds(1);
       private boolean warnAboutFailedParses = true;
+      /**
+       * Parse the most common single table statements with a hand-written parser, before falling back to JSqlParser.
+       */
+      private boolean fastPathEnabled = true;
+      /**
+       * Fold literals and collapse `IN` lists in the parse results cache keys, so statements differing only by those would share one entry.
+       */
+      private boolean normalizeCacheKeys = true;
+      /**
+       * On a cache miss, parse in the background instead of blocking the statement's thread.
+       *
+       * <p>Accesses happening until the parse completes, are buffered and attributed afterwards.
+       */
+      private boolean asyncParsingEnabled = false;
+      /**
+       * Accesses over that, for one statement waiting for its parse, are counted as uncounted queries.
+       */
+      private int asyncParsingMaxPendingAccesses = 1000;
+      /**
+       * What the parse results cache is keyed by.
+       */
+      private CacheKeyMode cacheKeyMode = CacheKeyMode.SQL;
+
+      public enum CacheKeyMode {
+        /**
+         * The (normalized) statement itself.
+         */
+        SQL,
+        /**
+         * 128-bit fingerprint of the (normalized) statement, the statement is not kept in memory.
+         */
+        FINGERPRINT,
+        /**
+         * 128-bit fingerprint, but the statement is kept and compared as well, so collisions are impossible.
+         */
+        VERIFIED_FINGERPRINT
+      }
     }
 
     @Data
@@ -47,11 +273,115 @@ public class EntryPointsProperties {
 
       private boolean enabled = true;
     }
+
+    /**
+     * Parse results are written into a local file on graceful shutdown and preloaded into the cache on startup.
+     */
+    @Data
+    public static class ParseResultsSnapshot {
+
+      private boolean enabled = false;
+      private String directory = System.getProperty("java.io.tmpdir") + "/tw-entrypoints";
+      private int maxEntries = 100_000;
+      /**
+       * Change it, when `TasQueryParsingInterceptor` starts to give different results, so the old snapshots would be ignored.
+       */
+      private String interceptorVersion = "";
+    }
+
+    /**
+     * Records only 1 in `rate` statements, picked randomly, and scales the counters up by the rate.
+     *
+     * <p>First table access timers get only the sampled statements, so their latency distribution stays representative, but their counts
+     * are not scaled.
+     */
+    @Data
+    public static class Sampling {
+
+      /**
+       * 1 records every statement.
+       */
+      private int rate = 1;
+      /**
+       * Overrides by entrypoint name, take precedence over the database ones.
+       */
+      private Map<String, Integer> entryPoints = new HashMap<>();
+      /**
+       * Overrides by database name.
+       */
+      private Map<String, Integer> databases = new HashMap<>();
+    }
+
+    /**
+     * Keeps the slowest statements executed within a rolling window, for the `slowstatements` actuator endpoint.
+     *
+     * <p>Statements are considered regardless of the sampling.
+     */
+    @Data
+    public static class SlowestStatements {
+
+      private boolean enabled = false;
+      /**
+       * How many statements are kept.
+       */
+      private int size = 50;
+      private Duration window = Duration.ofMinutes(5);
+      /**
+       * Faster statements are not considered at all, so the buffer would not get filled up with ordinary ones.
+       */
+      private Duration minExecutionTime = Duration.ofMillis(10);
+    }
   }
 
   @Data
   public static class Ts {
 
     private boolean enabled = true;
+    private LongTransactions longTransactions = new LongTransactions();
+
+    /**
+     * Tracks the open transactions, so the ones running for long would be visible before they end.
+     */
+    @Data
+    public static class LongTransactions {
+
+      private boolean enabled = false;
+      /**
+       * Transactions open for longer than that, are counted and logged.
+       */
+      private Duration threshold = Duration.ofMinutes(1);
+      private Duration checkInterval = Duration.ofSeconds(10);
+      /**
+       * At most one long transaction is logged per that interval.
+       */
+      private Duration logInterval = Duration.ofMinutes(1);
+    }
+  }
+
+  /**
+   * Limits how many series each of the library's metrics can have.
+   */
+  @Data
+  public static class CardinalityLimits {
+
+    private boolean enabled = false;
+    /**
+     * Checked in order, the first one matching a metric applies to it. Metrics not matched by any, are not limited.
+     */
+    private List<Limit> limits = new ArrayList<>();
+
+    @Data
+    public static class Limit {
+
+      /**
+       * `*` matches any characters. Each matching metric is limited separately.
+       */
+      private String metricName = "*";
+      private int maxSeries = 1000;
+      /**
+       * The least significant tag of the metric, its value is replaced with `other` for the series over the limit.
+       */
+      private String foldedTag = TwContextMetricsTemplate.TAG_EP_NAME;
+    }
   }
 }
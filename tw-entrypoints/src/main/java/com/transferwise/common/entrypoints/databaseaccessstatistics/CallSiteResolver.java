@@ -0,0 +1,62 @@
+package com.transferwise.common.entrypoints.databaseaccessstatistics;
+
+import java.lang.StackWalker.StackFrame;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the call site of the current thread, as its top application frames.
+ */
+class CallSiteResolver {
+
+  /**
+   * Call site, when all the frames are excluded ones.
+   */
+  static final String NO_APPLICATION_FRAMES = "noApplicationFrames";
+
+  /**
+   * Always skipped, even if their package is not excluded.
+   */
+  private static final Set<String> OWN_CLASSES = Set.of(CallSiteResolver.class.getName(), DasUnknownCallSites.class.getName(),
+      DatabaseAccessStatisticsSpyqlListener.class.getName(), DatabaseAccessStatisticsSpyqlListener.ConnectionListener.class.getName(),
+      OpenConnections.class.getName());
+
+  private final StackWalker stackWalker = StackWalker.getInstance();
+  private final int framesCount;
+  private final String[] excludedPackages;
+
+  CallSiteResolver(int framesCount, List<String> excludedPackages) {
+    this.framesCount = framesCount;
+    this.excludedPackages = excludedPackages.toArray(new String[0]);
+  }
+
+  /**
+   * Walks only as many frames as needed.
+   */
+  String resolve() {
+    return stackWalker.walk(this::toCallSite);
+  }
+
+  private String toCallSite(Stream<StackFrame> frames) {
+    final String callSite = frames
+        .filter(frame -> isApplicationFrame(frame.getClassName()))
+        .limit(framesCount)
+        .map(frame -> frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+        .collect(Collectors.joining(" <- "));
+    return callSite.isEmpty() ? NO_APPLICATION_FRAMES : callSite;
+  }
+
+  private boolean isApplicationFrame(String className) {
+    if (OWN_CLASSES.contains(className) || className.contains("$$")) {
+      return false;
+    }
+    for (String excludedPackage : excludedPackages) {
+      if (className.startsWith(excludedPackage)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
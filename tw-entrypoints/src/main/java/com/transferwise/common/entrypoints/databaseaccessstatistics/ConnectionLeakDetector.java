@@ -0,0 +1,90 @@
+package com.transferwise.common.entrypoints.databaseaccessstatistics;
+
+import com.transferwise.common.baseutils.meters.cache.IMeterCache;
+import com.transferwise.common.baseutils.meters.cache.TagsSet;
+import com.transferwise.common.context.TwContext;
+import com.transferwise.common.context.TwContextMetricsTemplate;
+import com.transferwise.common.entrypoints.EntryPointsMetrics;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import com.transferwise.common.entrypoints.databaseaccessstatistics.OpenConnections.OpenConnection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reports connections, which are still open when their entrypoint ends, by where they were got.
+ *
+ * <p>Once `maxExportedAcquisitionSites` distinct acquisition sites have got their own series, new ones are counted as `other`, but the
+ * logged line still has the full acquisition site.
+ */
+@Slf4j
+public class ConnectionLeakDetector {
+
+  public static final String COUNTER_LEAKED_CONNECTIONS = "EntryPoints_Das_LeakedConnections";
+  public static final String TAG_ACQUISITION_SITE = "acquisitionSite";
+  public static final String ACQUISITION_SITE_OTHER = "other";
+
+  private final EntryPointsProperties entryPointsProperties;
+  private final IMeterCache meterCache;
+  private final AtomicLong nextLogTimeMs = new AtomicLong();
+  /**
+   * Acquisition sites having their own series.
+   */
+  private final Set<String> exportedAcquisitionSites = new HashSet<>();
+  private volatile CallSiteResolver callSiteResolver;
+
+  public ConnectionLeakDetector(EntryPointsProperties entryPointsProperties, IMeterCache meterCache) {
+    this.entryPointsProperties = entryPointsProperties;
+    this.meterCache = meterCache;
+  }
+
+  /**
+   * Returns `null`, when the detection is disabled.
+   */
+  OpenConnections create() {
+    final EntryPointsProperties.Das.ConnectionLeakDetection properties = entryPointsProperties.getDas().getConnectionLeakDetection();
+    if (!properties.isEnabled()) {
+      return null;
+    }
+    if (callSiteResolver == null) {
+      callSiteResolver = new CallSiteResolver(properties.getFramesCount(), properties.getExcludedPackages());
+    }
+    return new OpenConnections(callSiteResolver);
+  }
+
+  void report(TwContext context, OpenConnections openConnections) {
+    for (OpenConnection openConnection : openConnections.getOpenConnections()) {
+      meterCache.counter(COUNTER_LEAKED_CONNECTIONS, TagsSet.of(
+          EntryPointsMetrics.TAG_DATABASE, openConnection.getDatabaseName(),
+          TwContextMetricsTemplate.TAG_EP_GROUP, context.getGroup(),
+          TwContextMetricsTemplate.TAG_EP_NAME, context.getName(),
+          TwContextMetricsTemplate.TAG_EP_OWNER, context.getOwner(),
+          TAG_ACQUISITION_SITE, getExportedAcquisitionSite(openConnection.getAcquisitionSite())
+      )).increment();
+
+      final long nowMs = System.currentTimeMillis();
+      final long nextLogTimeMs = this.nextLogTimeMs.get();
+      final long logIntervalMs = entryPointsProperties.getDas().getConnectionLeakDetection().getLogInterval().toMillis();
+      if (nowMs >= nextLogTimeMs && this.nextLogTimeMs.compareAndSet(nextLogTimeMs, nowMs + logIntervalMs)) {
+        log.warn("Entrypoint '{}:{}' ended, while still holding a connection to database '{}'. The connection was got at: {}",
+            context.getGroup(), context.getName(), openConnection.getDatabaseName(), openConnection.getAcquisitionSite());
+      }
+    }
+  }
+
+  /**
+   * Leaks are rare, so a lock is fine here.
+   */
+  protected synchronized String getExportedAcquisitionSite(String acquisitionSite) {
+    if (exportedAcquisitionSites.contains(acquisitionSite)) {
+      return acquisitionSite;
+    }
+    final int maxExportedAcquisitionSites = entryPointsProperties.getDas().getConnectionLeakDetection().getMaxExportedAcquisitionSites();
+    if (exportedAcquisitionSites.size() < maxExportedAcquisitionSites) {
+      exportedAcquisitionSites.add(acquisitionSite);
+      return acquisitionSite;
+    }
+    return ACQUISITION_SITE_OTHER;
+  }
+}
@@ -6,13 +6,28 @@ import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.Meter.Type;
 import io.micrometer.core.instrument.config.MeterFilter;
 import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import java.time.Duration;
+import java.util.stream.Stream;
 
 public class DasMeterFilter implements MeterFilter {
 
+  /**
+   * Connection timers have buckets, so entrypoints starving the pool would stand out.
+   */
+  private static final double[] CONNECTION_TIME_BUCKETS_NS = Stream.of(1, 5, 10, 25, 50, 100, 250, 500, 1000, 5000)
+      .mapToDouble(ms -> Duration.ofMillis(ms).toNanos()).toArray();
+
   @Override
   public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
     if (id.getName().startsWith(METRIC_PREFIX_DAS)) {
-      if (id.getType() == Type.DISTRIBUTION_SUMMARY) {
+      if (id.getName().equals(DatabaseAccessStatisticsEntryPointInterceptor.TIMER_REGISTERED_CONNECTION_ACQUISITION_TIME)
+          || id.getName().equals(DatabaseAccessStatisticsEntryPointInterceptor.TIMER_REGISTERED_CONNECTION_HOLD_TIME)) {
+        return DistributionStatisticConfig.builder()
+            .percentilesHistogram(false)
+            .serviceLevelObjectives(CONNECTION_TIME_BUCKETS_NS)
+            .build()
+            .merge(config);
+      } else if (id.getType() == Type.DISTRIBUTION_SUMMARY) {
         return DistributionStatisticConfig.builder()
             .percentilesHistogram(false)
             .maximumExpectedValue(1d)
@@ -0,0 +1,169 @@
+package com.transferwise.common.entrypoints.databaseaccessstatistics;
+
+import com.transferwise.common.baseutils.meters.cache.IMeterCache;
+import com.transferwise.common.baseutils.meters.cache.TagsSet;
+import com.transferwise.common.entrypoints.EntryPointsMetrics;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Finds out, where the database statements executed outside of entrypoints are coming from.
+ *
+ * <p>At most `samplesPerSecond` of those statements are sampled. The top application frames of a sampled statement's stack make up its
+ * call site, which is counted in a table bounded by `maxCallSites`. Every `reportInterval`, the top call sites are added to the
+ * `EntryPoints_Das_Unknown_CallSiteSamples` counters and logged, and the table is started over.
+ *
+ * <p>Once `maxExportedCallSites` distinct call sites have got their own series, new ones are counted as `other`, but still logged.
+ */
+@Slf4j
+public class DasUnknownCallSites {
+
+  public static final String COUNTER_CALL_SITE_SAMPLES = "EntryPoints_Das_Unknown_CallSiteSamples";
+  public static final String TAG_CALL_SITE = "callSite";
+  /**
+   * Call sites not fitting into the table or not in the top, are counted under that.
+   */
+  public static final String CALL_SITE_OTHER = "other";
+  /**
+   * Call site of statements, where all the frames are excluded ones.
+   */
+  public static final String CALL_SITE_NO_APPLICATION_FRAMES = CallSiteResolver.NO_APPLICATION_FRAMES;
+
+  private final IMeterCache meterCache;
+  private final CallSiteResolver callSiteResolver;
+  private final long sampleIntervalNs;
+  private final int maxCallSites;
+  private final int topK;
+  private final int maxExportedCallSites;
+  private final Duration reportInterval;
+  /**
+   * Call sites having their own series. Only touched by {@link #report()}.
+   */
+  private final Set<CallSite> exportedCallSites = new HashSet<>();
+
+  private final AtomicLong nextSampleTimeNs;
+  private volatile Map<CallSite, LongAdder> callSites = new ConcurrentHashMap<>();
+  private long nextReportTimeNs;
+
+  public DasUnknownCallSites(EntryPointsProperties entryPointsProperties, IMeterCache meterCache) {
+    this.meterCache = meterCache;
+
+    var properties = entryPointsProperties.getDas().getUnknownCallSites();
+    this.sampleIntervalNs = TimeUnit.SECONDS.toNanos(1) / Math.max(1, properties.getSamplesPerSecond());
+    this.callSiteResolver = new CallSiteResolver(properties.getFramesCount(), properties.getExcludedPackages());
+    this.maxCallSites = properties.getMaxCallSites();
+    this.topK = properties.getTopK();
+    this.maxExportedCallSites = properties.getMaxExportedCallSites();
+    this.reportInterval = properties.getReportInterval();
+
+    long now = System.nanoTime();
+    this.nextSampleTimeNs = new AtomicLong(now);
+    this.nextReportTimeNs = now + reportInterval.toNanos();
+
+    log.info("Sampling call sites of database statements executed outside of entrypoints, {} times a second.",
+        properties.getSamplesPerSecond());
+  }
+
+  /**
+   * Called for every statement executed outside of an entrypoint.
+   *
+   * <p>Outside of the samples, it is just a clock read and a comparison.
+   */
+  public void registerStatement(String databaseName) {
+    final long now = System.nanoTime();
+    final long next = nextSampleTimeNs.get();
+    if (now - next < 0 || !nextSampleTimeNs.compareAndSet(next, now + sampleIntervalNs)) {
+      return;
+    }
+
+    final Map<CallSite, LongAdder> callSites = this.callSites;
+    CallSite callSite = new CallSite(databaseName, callSiteResolver.resolve());
+    LongAdder samples = callSites.get(callSite);
+    if (samples == null) {
+      if (callSites.size() >= maxCallSites) {
+        callSite = new CallSite(databaseName, CALL_SITE_OTHER);
+      }
+      samples = callSites.computeIfAbsent(callSite, k -> new LongAdder());
+    }
+    samples.increment();
+  }
+
+  /**
+   * Called periodically by {@link DasUnknownCallsCollector}.
+   */
+  void reportIfDue() {
+    final long now = System.nanoTime();
+    if (now - nextReportTimeNs >= 0) {
+      nextReportTimeNs = now + reportInterval.toNanos();
+      report();
+    }
+  }
+
+  /**
+   * Samples arriving during the swap of the tables, can be lost.
+   */
+  void report() {
+    final Map<CallSite, LongAdder> callSites = this.callSites;
+    this.callSites = new ConcurrentHashMap<>();
+
+    final List<Map.Entry<CallSite, Long>> entries = new ArrayList<>(callSites.size());
+    long totalSamples = 0;
+    for (var entry : callSites.entrySet()) {
+      final long samples = entry.getValue().sum();
+      entries.add(Map.entry(entry.getKey(), samples));
+      totalSamples += samples;
+    }
+    if (totalSamples == 0) {
+      return;
+    }
+    entries.sort(Map.Entry.<CallSite, Long>comparingByValue(Comparator.reverseOrder()));
+
+    final StringBuilder sb = new StringBuilder("Top call sites of database statements executed outside of entrypoints, from ")
+        .append(totalSamples).append(" samples in the last ").append(reportInterval).append(':');
+    for (int i = 0; i < entries.size(); i++) {
+      final CallSite callSite = entries.get(i).getKey();
+      final long samples = entries.get(i).getValue();
+      if (i < topK) {
+        sb.append("\n  ").append(samples).append(" - ").append(callSite.getDatabaseName()).append(" - ").append(callSite.getFrames());
+        increment(callSite, samples);
+      } else {
+        increment(new CallSite(callSite.getDatabaseName(), CALL_SITE_OTHER), samples);
+      }
+    }
+    if (entries.size() > topK) {
+      sb.append("\n  ... and ").append(entries.size() - topK).append(" more.");
+    }
+    log.info(sb.toString());
+  }
+
+  private void increment(CallSite callSite, long samples) {
+    if (!exportedCallSites.contains(callSite)) {
+      if (exportedCallSites.size() < maxExportedCallSites) {
+        exportedCallSites.add(callSite);
+      } else {
+        callSite = new CallSite(callSite.getDatabaseName(), CALL_SITE_OTHER);
+      }
+    }
+    TagsSet tagsSet = TagsSet.of(EntryPointsMetrics.TAG_DATABASE, callSite.getDatabaseName(), TAG_CALL_SITE, callSite.getFrames());
+    meterCache.counter(COUNTER_CALL_SITE_SAMPLES, tagsSet).increment(samples);
+  }
+
+  @Data
+  private static class CallSite {
+
+    private final String databaseName;
+    private final String frames;
+  }
+}
@@ -9,6 +9,7 @@ import com.transferwise.common.baseutils.meters.cache.TagsSet;
 import com.transferwise.common.gracefulshutdown.GracefulShutdownStrategy;
 import io.micrometer.core.instrument.Counter;
 import java.time.Duration;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -22,9 +23,16 @@ public class DasUnknownCallsCollector implements GracefulShutdownStrategy {
   public static final String COUNTER_UNREGISTERED_NT_QUERIES = "EntryPoints_Das_Unknown_NTQueries";
   public static final String COUNTER_UNREGISTERED_ROLLBACKS = "EntryPoints_Das_Unknown_Rollbacks";
   public static final String COUNTER_UNREGISTERED_COMMITS = "EntryPoints_Das_Unknown_Commits";
+  public static final String COUNTER_UNREGISTERED_CONNECTION_ACQUISITION_TIME_NS = "EntryPoints_Das_Unknown_ConnectionAcquisitionTimeNs";
+  public static final String COUNTER_UNREGISTERED_CONNECTION_HOLD_TIME_NS = "EntryPoints_Das_Unknown_ConnectionHoldTimeNs";
 
   private IMeterCache meterCache;
   private TaskHandle taskHandle;
+  /**
+   * When set, its top call sites are reported as well.
+   */
+  @Setter
+  private DasUnknownCallSites unknownCallSites;
 
   private long iterationsCount;
 
@@ -47,6 +55,8 @@ public class DasUnknownCallsCollector implements GracefulShutdownStrategy {
       final long affectedRows = das.getAndResetAffectedRowsCount();
       final long emptyTransactions = das.getAndResetEmptyTransactionsCount();
       final long fetchedRows = das.getAndResetFetchedRowsCount();
+      final long connectionAcquisitionTimeNs = das.getAndResetConnectionAcquisitionTimeNs();
+      final long connectionHoldTimeNs = das.getAndResetConnectionHoldTimeNs();
 
       TagsSet tagsSet = das.getTagsSet();
       UnknownCallMeters meters = meterCache.metersContainer(METRIC_PREFIX_DAS + "unknownCallMetrics", tagsSet, (name, tags) -> {
@@ -59,6 +69,8 @@ public class DasUnknownCallsCollector implements GracefulShutdownStrategy {
         result.emptyTransactions = meterCache.counter(COUNTER_UNREGISTERED_EMPTY_TRANSACTIONS, tags);
         result.affectedRows = meterCache.counter(COUNTER_UNREGISTERED_AFFECTED_ROWS, tagsSet);
         result.fetchedRows = meterCache.counter(COUNTER_UNREGISTERED_FETCHED_ROWS, tagsSet);
+        result.connectionAcquisitionTimeNs = meterCache.counter(COUNTER_UNREGISTERED_CONNECTION_ACQUISITION_TIME_NS, tags);
+        result.connectionHoldTimeNs = meterCache.counter(COUNTER_UNREGISTERED_CONNECTION_HOLD_TIME_NS, tags);
         return result;
       });
 
@@ -70,6 +82,12 @@ public class DasUnknownCallsCollector implements GracefulShutdownStrategy {
       meters.emptyTransactions.increment(emptyTransactions);
       meters.affectedRows.increment(affectedRows);
       meters.fetchedRows.increment(fetchedRows);
+      meters.connectionAcquisitionTimeNs.increment(connectionAcquisitionTimeNs);
+      meters.connectionHoldTimeNs.increment(connectionHoldTimeNs);
+    }
+
+    if (unknownCallSites != null) {
+      unknownCallSites.reportIfDue();
     }
 
     iterationsCount++;
@@ -89,6 +107,8 @@ public class DasUnknownCallsCollector implements GracefulShutdownStrategy {
     private Counter emptyTransactions;
     private Counter affectedRows;
     private Counter fetchedRows;
+    private Counter connectionAcquisitionTimeNs;
+    private Counter connectionHoldTimeNs;
   }
 
   @Override
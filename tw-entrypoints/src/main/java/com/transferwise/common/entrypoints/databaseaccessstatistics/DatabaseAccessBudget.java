@@ -0,0 +1,103 @@
+package com.transferwise.common.entrypoints.databaseaccessstatistics;
+
+import com.transferwise.common.context.TwContext;
+import com.transferwise.common.entrypoints.EntryPointsProperties.Das.Budget;
+import com.transferwise.common.entrypoints.EntryPointsProperties.Das.Budget.Mode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+
+/**
+ * Database access of one entrypoint execution, checked against its budget on every statement and transaction.
+ *
+ * <p>Each limit is reported only once, when it is first exceeded.
+ */
+class DatabaseAccessBudget {
+
+  static final String TW_CONTEXT_KEY = "DatabaseAccessBudget";
+
+  static final String LIMIT_QUERIES = "queries";
+  static final String LIMIT_TIME_IN_DATABASE = "timeInDatabase";
+  static final String LIMIT_TRANSACTIONS = "transactions";
+
+  private static final int QUERIES_EXCEEDED = 1;
+  private static final int TIME_IN_DATABASE_EXCEEDED = 2;
+  private static final int TRANSACTIONS_EXCEEDED = 4;
+
+  private final DatabaseAccessBudgets budgets;
+  @Getter
+  private final TwContext context;
+  @Getter
+  private final Budget budget;
+  private final long maxQueries;
+  private final long maxTimeInDatabaseNs;
+  private final long maxTransactions;
+
+  private final AtomicLong queries = new AtomicLong();
+  private final AtomicLong timeInDatabaseNs = new AtomicLong();
+  private final AtomicLong transactions = new AtomicLong();
+  private final AtomicInteger exceeded = new AtomicInteger();
+  private final List<String> violations = new ArrayList<>();
+
+  DatabaseAccessBudget(DatabaseAccessBudgets budgets, TwContext context, Budget budget) {
+    this.budgets = budgets;
+    this.context = context;
+    this.budget = budget;
+    this.maxQueries = budget.getMaxQueries() == null ? Long.MAX_VALUE : budget.getMaxQueries();
+    this.maxTimeInDatabaseNs = budget.getMaxTimeInDatabase() == null ? Long.MAX_VALUE : budget.getMaxTimeInDatabase().toNanos();
+    this.maxTransactions = budget.getMaxTransactions() == null ? Long.MAX_VALUE : budget.getMaxTransactions();
+  }
+
+  void registerQuery(long timeTakenNs, String sql) {
+    final long queries = this.queries.incrementAndGet();
+    if (queries > maxQueries) {
+      exceeded(QUERIES_EXCEEDED, LIMIT_QUERIES, queries, maxQueries, sql);
+    }
+    registerDatabaseAction(timeTakenNs, sql);
+  }
+
+  void registerTransaction(long timeTakenNs) {
+    final long transactions = this.transactions.incrementAndGet();
+    if (transactions > maxTransactions) {
+      exceeded(TRANSACTIONS_EXCEEDED, LIMIT_TRANSACTIONS, transactions, maxTransactions, null);
+    }
+    registerDatabaseAction(timeTakenNs, null);
+  }
+
+  void registerDatabaseAction(long timeTakenNs, String sql) {
+    final long timeInDatabaseNs = this.timeInDatabaseNs.addAndGet(timeTakenNs);
+    if (timeInDatabaseNs > maxTimeInDatabaseNs) {
+      exceeded(TIME_IN_DATABASE_EXCEEDED, LIMIT_TIME_IN_DATABASE, timeInDatabaseNs, maxTimeInDatabaseNs, sql);
+    }
+  }
+
+  /**
+   * Called when the entrypoint ends.
+   */
+  void throwIfExceeded() {
+    if (budget.getMode() == Mode.FAIL && exceeded.get() != 0) {
+      synchronized (violations) {
+        throw new DatabaseAccessBudgetExceededException("Entrypoint '" + context.getGroup() + ":" + context.getName()
+            + "' went over its database access budget: " + String.join(", ", violations) + ".");
+      }
+    }
+  }
+
+  private void exceeded(int flag, String limit, long value, long maxValue, String sql) {
+    if ((exceeded.get() & flag) != 0 || (exceeded.getAndUpdate(v -> v | flag) & flag) != 0) {
+      return;
+    }
+    final String violation = limit + " " + format(limit, value) + " > " + format(limit, maxValue);
+    synchronized (violations) {
+      violations.add(violation);
+    }
+    budgets.exceeded(this, limit, violation, sql);
+  }
+
+  private static String format(String limit, long value) {
+    return LIMIT_TIME_IN_DATABASE.equals(limit) ? TimeUnit.NANOSECONDS.toMillis(value) + "ms" : String.valueOf(value);
+  }
+}
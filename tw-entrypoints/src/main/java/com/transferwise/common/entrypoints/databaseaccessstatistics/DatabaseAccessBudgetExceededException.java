@@ -0,0 +1,14 @@
+package com.transferwise.common.entrypoints.databaseaccessstatistics;
+
+/**
+ * Thrown when an entrypoint with a {@link com.transferwise.common.entrypoints.EntryPointsProperties.Das.Budget.Mode#FAIL} budget ends,
+ * after going over it.
+ */
+public class DatabaseAccessBudgetExceededException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public DatabaseAccessBudgetExceededException(String message) {
+    super(message);
+  }
+}
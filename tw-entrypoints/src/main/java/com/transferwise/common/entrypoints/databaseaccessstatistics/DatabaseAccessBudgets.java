@@ -0,0 +1,84 @@
+package com.transferwise.common.entrypoints.databaseaccessstatistics;
+
+import com.transferwise.common.baseutils.meters.cache.IMeterCache;
+import com.transferwise.common.baseutils.meters.cache.TagsSet;
+import com.transferwise.common.context.TwContext;
+import com.transferwise.common.context.TwContextMetricsTemplate;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import com.transferwise.common.entrypoints.EntryPointsProperties.Das.Budget;
+import com.transferwise.common.entrypoints.EntryPointsProperties.Das.Budget.Mode;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Finds the budget of an entrypoint and handles the violations of it.
+ */
+@Slf4j
+public class DatabaseAccessBudgets {
+
+  public static final String COUNTER_BUDGET_VIOLATIONS = "EntryPoints_Das_BudgetViolations";
+  public static final String TAG_BUDGET = "budget";
+
+  private static final int LOG_MAX_SQL_LENGTH = 1000;
+
+  private final EntryPointsProperties entryPointsProperties;
+  private final IMeterCache meterCache;
+  private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+  private final AtomicLong nextLogTimeMs = new AtomicLong();
+
+  public DatabaseAccessBudgets(EntryPointsProperties entryPointsProperties, IMeterCache meterCache) {
+    this.entryPointsProperties = entryPointsProperties;
+    this.meterCache = meterCache;
+  }
+
+  /**
+   * Returns `null`, when no budget applies to the entrypoint.
+   */
+  DatabaseAccessBudget create(TwContext context) {
+    for (Budget budget : entryPointsProperties.getDas().getBudgets()) {
+      if (matches(budget.getEntryPointGroup(), context.getGroup()) && matches(budget.getEntryPointName(), context.getName())) {
+        return new DatabaseAccessBudget(this, context, budget);
+      }
+    }
+    return null;
+  }
+
+  void exceeded(DatabaseAccessBudget budget, String limit, String violation, String sql) {
+    final TwContext context = budget.getContext();
+    meterCache.counter(COUNTER_BUDGET_VIOLATIONS, TagsSet.of(
+        TwContextMetricsTemplate.TAG_EP_GROUP, context.getGroup(),
+        TwContextMetricsTemplate.TAG_EP_NAME, context.getName(),
+        TwContextMetricsTemplate.TAG_EP_OWNER, context.getOwner(),
+        TAG_BUDGET, limit
+    )).increment();
+
+    if (budget.getBudget().getMode() == Mode.METRIC) {
+      return;
+    }
+
+    final long nowMs = System.currentTimeMillis();
+    final long nextLogTimeMs = this.nextLogTimeMs.get();
+    final long logIntervalMs = entryPointsProperties.getDas().getBudgetViolationsLogInterval().toMillis();
+    if (nowMs >= nextLogTimeMs && this.nextLogTimeMs.compareAndSet(nextLogTimeMs, nowMs + logIntervalMs)) {
+      log.warn("Entrypoint '{}:{}' went over its database access budget, {}. Statement: {}", context.getGroup(), context.getName(), violation,
+          sql == null ? "-" : StringUtils.abbreviate(sql, LOG_MAX_SQL_LENGTH));
+    }
+  }
+
+  private boolean matches(String glob, String value) {
+    if ("*".equals(glob)) {
+      return true;
+    }
+    if (value == null) {
+      return false;
+    }
+    return patterns.computeIfAbsent(glob, k -> Pattern.compile(Arrays.stream(k.split("\\*", -1)).map(Pattern::quote)
+        .collect(Collectors.joining(".*")))).matcher(value).matches();
+  }
+}
@@ -4,14 +4,24 @@ import com.transferwise.common.baseutils.meters.cache.TagsSet;
 import com.transferwise.common.context.TwContext;
 import com.transferwise.common.entrypoints.EntryPointsMetrics;
 import com.transferwise.common.spyql.event.StatementExecuteEvent;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Database access counts of an entrypoint, or of all the calls outside of entrypoints.
+ *
+ * <p>Updates from the owner thread, usually the entrypoint's own thread, are plain writes without any CAS. Updates from all other threads
+ * go into striped adders, so the shared instances for calls outside of entrypoints do not have all the threads contending on the same
+ * cache lines.
+ */
 @Slf4j
 public class DatabaseAccessStatistics {
 
@@ -19,6 +29,20 @@ public class DatabaseAccessStatistics {
 
   public static final Map<String, DatabaseAccessStatistics> unknownContextDbDasMap = new ConcurrentHashMap<>();
 
+  private static final int COMMITS = 0;
+  private static final int ROLLBACKS = 1;
+  private static final int NON_TRANSACTIONAL_QUERIES = 2;
+  private static final int TRANSACTIONAL_QUERIES = 3;
+  private static final int TIME_TAKEN_IN_DATABASE_NS = 4;
+  private static final int EMPTY_TRANSACTIONS = 5;
+  private static final int AFFECTED_ROWS = 6;
+  private static final int FETCHED_ROWS = 7;
+  private static final int CONNECTION_ACQUISITION_TIME_NS = 8;
+  private static final int CONNECTION_HOLD_TIME_NS = 9;
+  private static final int COUNTS_LENGTH = 10;
+
+  private static final VarHandle OWNER_COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+
   @SuppressWarnings("unused")
   public static DatabaseAccessStatistics get(String databaseName) {
     return get(TwContext.current(), databaseName);
@@ -27,24 +51,32 @@ public class DatabaseAccessStatistics {
   public static DatabaseAccessStatistics get(@NonNull TwContext twContext, String databaseName) {
     Map<String, DatabaseAccessStatistics> map = twContext.get(TW_CONTEXT_KEY);
     if (map == null) {
-      map = unknownContextDbDasMap;
+      return unknownContextDbDasMap.computeIfAbsent(databaseName, k -> new DatabaseAccessStatistics(databaseName));
     }
-    return map.computeIfAbsent(databaseName, k -> new DatabaseAccessStatistics(databaseName));
+    return map.computeIfAbsent(databaseName, k -> new DatabaseAccessStatistics(databaseName, Thread.currentThread()));
   }
 
-  private final AtomicLong commitsCount = new AtomicLong();
-  private final AtomicLong rollbacksCount = new AtomicLong();
-  private final AtomicLong nonTransactionalQueriesCount = new AtomicLong();
-  private final AtomicLong transactionalQueriesCount = new AtomicLong();
-  private final AtomicLong timeTakenInDatabaseNs = new AtomicLong();
-  private final AtomicLong emptyTransactionsCount = new AtomicLong();
-  private final AtomicLong affectedRowsCount = new AtomicLong();
-  private final AtomicLong fetchedRowsCount = new AtomicLong();
-
-  @Getter
-  private long currentConnectionsCount = 0;
-  @Getter
-  private long maxConnectionsCount = 0;
+  /**
+   * `null` for instances, which are shared between threads from the start.
+   */
+  private final Thread ownerThread;
+  /**
+   * Written only by the owner thread. Release writes make the values visible for readers on other threads.
+   */
+  private final long[] ownerCounts = new long[COUNTS_LENGTH];
+  /**
+   * Updates from all other threads. Created on the first such update.
+   */
+  private volatile LongAdder[] sharedCounts;
+
+  /**
+   * Connections can be opened and closed from multiple threads, when an entrypoint fans out its work.
+   */
+  private final AtomicLong currentConnectionsCount = new AtomicLong();
+  /**
+   * High-water mark of the current connections count, only ever raised.
+   */
+  private final AtomicLong maxConnectionsCount = new AtomicLong();
   @Getter
   private final String databaseName;
   @Getter
@@ -57,115 +89,211 @@ public class DatabaseAccessStatistics {
   private boolean logSqlStacktrace;
 
   public DatabaseAccessStatistics(String databaseName) {
+    this(databaseName, null);
+  }
+
+  public DatabaseAccessStatistics(String databaseName, Thread ownerThread) {
     this.databaseName = databaseName;
     this.tagsSet = TagsSet.of(EntryPointsMetrics.TAG_DATABASE, databaseName);
+    this.ownerThread = ownerThread;
   }
 
   public void registerCommit(long timeTakenNs) {
-    commitsCount.incrementAndGet();
-    timeTakenInDatabaseNs.addAndGet(timeTakenNs);
+    add(COMMITS, 1);
+    add(TIME_TAKEN_IN_DATABASE_NS, timeTakenNs);
   }
 
   public void registerDatabaseAction(long timeTakenNs) {
-    timeTakenInDatabaseNs.addAndGet(timeTakenNs);
+    add(TIME_TAKEN_IN_DATABASE_NS, timeTakenNs);
   }
 
   public long getCommitsCount() {
-    return commitsCount.get();
+    return get(COMMITS);
   }
 
   public long getAndResetCommitsCount() {
-    return commitsCount.getAndSet(0);
+    return getAndReset(COMMITS);
   }
 
   public void registerRollback(long timeTakenNs) {
-    rollbacksCount.incrementAndGet();
-    timeTakenInDatabaseNs.addAndGet(timeTakenNs);
+    add(ROLLBACKS, 1);
+    add(TIME_TAKEN_IN_DATABASE_NS, timeTakenNs);
   }
 
   public long getRollbacksCount() {
-    return rollbacksCount.get();
+    return get(ROLLBACKS);
   }
 
   public long getAndResetRollbacksCount() {
-    return rollbacksCount.getAndSet(0);
+    return getAndReset(ROLLBACKS);
   }
 
   public long getNonTransactionalQueriesCount() {
-    return nonTransactionalQueriesCount.get();
+    return get(NON_TRANSACTIONAL_QUERIES);
   }
 
   public long getAndResetNonTransactionalQueriesCount() {
-    return nonTransactionalQueriesCount.getAndSet(0);
+    return getAndReset(NON_TRANSACTIONAL_QUERIES);
   }
 
   public void registerQuery(StatementExecuteEvent event) {
-    if (event.isInTransaction()) {
-      transactionalQueriesCount.incrementAndGet();
-    } else {
-      nonTransactionalQueriesCount.incrementAndGet();
-    }
-    timeTakenInDatabaseNs.addAndGet(event.getExecutionTimeNs());
-    affectedRowsCount.addAndGet(event.getAffectedRowsCount());
+    add(event.isInTransaction() ? TRANSACTIONAL_QUERIES : NON_TRANSACTIONAL_QUERIES, 1);
+    add(TIME_TAKEN_IN_DATABASE_NS, event.getExecutionTimeNs());
+    add(AFFECTED_ROWS, event.getAffectedRowsCount());
   }
 
   public long getAffectedRowsCount() {
-    return affectedRowsCount.get();
+    return get(AFFECTED_ROWS);
   }
 
   public long getAndResetAffectedRowsCount() {
-    return affectedRowsCount.getAndSet(0);
+    return getAndReset(AFFECTED_ROWS);
   }
 
   public long getTransactionalQueriesCount() {
-    return transactionalQueriesCount.get();
+    return get(TRANSACTIONAL_QUERIES);
   }
 
   public long getAndResetTransactionalQueriesCount() {
-    return transactionalQueriesCount.getAndSet(0);
+    return getAndReset(TRANSACTIONAL_QUERIES);
   }
 
   public void registerConnectionOpened() {
-    currentConnectionsCount++;
-    if (currentConnectionsCount > maxConnectionsCount) {
-      maxConnectionsCount = currentConnectionsCount;
+    registerConnectionOpened(0);
+  }
+
+  /**
+   * Time waited for the connection is not included in the time taken in database.
+   */
+  public void registerConnectionOpened(long acquisitionTimeNs) {
+    if (acquisitionTimeNs != 0) {
+      add(CONNECTION_ACQUISITION_TIME_NS, acquisitionTimeNs);
+    }
+    final long current = currentConnectionsCount.incrementAndGet();
+    long max = maxConnectionsCount.get();
+    while (current > max) {
+      if (maxConnectionsCount.compareAndSet(max, current)) {
+        break;
+      }
+      max = maxConnectionsCount.get();
     }
   }
 
   public void registerConnectionClosed(long timeTakenNs) {
-    currentConnectionsCount--;
-    timeTakenInDatabaseNs.addAndGet(timeTakenNs);
+    registerConnectionClosed(timeTakenNs, 0);
+  }
+
+  /**
+   * Hold time is from getting the connection until closing it, so returning it to the pool.
+   */
+  public void registerConnectionClosed(long timeTakenNs, long holdTimeNs) {
+    currentConnectionsCount.decrementAndGet();
+    add(TIME_TAKEN_IN_DATABASE_NS, timeTakenNs);
+    if (holdTimeNs != 0) {
+      add(CONNECTION_HOLD_TIME_NS, holdTimeNs);
+    }
+  }
+
+  public long getCurrentConnectionsCount() {
+    return currentConnectionsCount.get();
+  }
+
+  public long getMaxConnectionsCount() {
+    return maxConnectionsCount.get();
+  }
+
+  public long getConnectionAcquisitionTimeNs() {
+    return get(CONNECTION_ACQUISITION_TIME_NS);
+  }
+
+  public long getAndResetConnectionAcquisitionTimeNs() {
+    return getAndReset(CONNECTION_ACQUISITION_TIME_NS);
+  }
+
+  public long getConnectionHoldTimeNs() {
+    return get(CONNECTION_HOLD_TIME_NS);
+  }
+
+  public long getAndResetConnectionHoldTimeNs() {
+    return getAndReset(CONNECTION_HOLD_TIME_NS);
   }
 
   public long getTimeTakenInDatabaseNs() {
-    return timeTakenInDatabaseNs.get();
+    return get(TIME_TAKEN_IN_DATABASE_NS);
   }
 
   public long getAndResetTimeTakenInDatabaseNs() {
-    return timeTakenInDatabaseNs.getAndSet(0);
+    return getAndReset(TIME_TAKEN_IN_DATABASE_NS);
   }
 
   public long getEmtpyTransactionsCount() {
-    return emptyTransactionsCount.get();
+    return get(EMPTY_TRANSACTIONS);
   }
 
   public long getAndResetEmptyTransactionsCount() {
-    return emptyTransactionsCount.getAndSet(0);
+    return getAndReset(EMPTY_TRANSACTIONS);
   }
 
   public void registerEmptyTransaction() {
-    emptyTransactionsCount.incrementAndGet();
+    add(EMPTY_TRANSACTIONS, 1);
   }
 
   public void registerRowsFetch(long rowsCount) {
-    fetchedRowsCount.addAndGet(rowsCount);
+    add(FETCHED_ROWS, rowsCount);
   }
 
   public long getFetchedRowsCount() {
-    return fetchedRowsCount.get();
+    return get(FETCHED_ROWS);
   }
 
   public long getAndResetFetchedRowsCount() {
-    return fetchedRowsCount.getAndSet(0);
+    return getAndReset(FETCHED_ROWS);
+  }
+
+  private void add(int idx, long delta) {
+    if (ownerThread == Thread.currentThread()) {
+      OWNER_COUNTS.setRelease(ownerCounts, idx, ownerCounts[idx] + delta);
+    } else {
+      sharedCounts()[idx].add(delta);
+    }
+  }
+
+  private long get(int idx) {
+    final LongAdder[] shared = sharedCounts;
+    return (long) OWNER_COUNTS.getAcquire(ownerCounts, idx) + (shared == null ? 0 : shared[idx].sum());
+  }
+
+  /**
+   * Exact for shared instances and when called from the owner thread. Otherwise, can race with the owner thread's updates.
+   */
+  private long getAndReset(int idx) {
+    long result;
+    if (ownerThread == null) {
+      result = 0;
+    } else if (ownerThread == Thread.currentThread()) {
+      result = ownerCounts[idx];
+      OWNER_COUNTS.setRelease(ownerCounts, idx, 0L);
+    } else {
+      result = (long) OWNER_COUNTS.getAndSet(ownerCounts, idx, 0L);
+    }
+    final LongAdder[] shared = sharedCounts;
+    return result + (shared == null ? 0 : shared[idx].sumThenReset());
+  }
+
+  private LongAdder[] sharedCounts() {
+    LongAdder[] result = sharedCounts;
+    if (result == null) {
+      synchronized (this) {
+        result = sharedCounts;
+        if (result == null) {
+          result = new LongAdder[COUNTS_LENGTH];
+          for (int i = 0; i < COUNTS_LENGTH; i++) {
+            result[i] = new LongAdder();
+          }
+          sharedCounts = result;
+        }
+      }
+    }
+    return result;
   }
 }
@@ -6,6 +6,7 @@ import com.transferwise.common.context.TwContext;
 import com.transferwise.common.context.TwContextExecutionInterceptor;
 import com.transferwise.common.context.TwContextMetricsTemplate;
 import com.transferwise.common.entrypoints.EntryPointsMetrics;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Timer;
 import java.util.Map;
@@ -30,28 +31,54 @@ public class DatabaseAccessStatisticsEntryPointInterceptor implements TwContextE
   public static final String SUMMARY_REGISTERED_NT_QUERIES = "EntryPoints_Das_Registered_NTQueries";
   public static final String SUMMARY_REGISTERED_ROLLBACKS = "EntryPoints_Das_Registered_Rollbacks";
   public static final String SUMMARY_REGISTERED_COMMITS = "EntryPoints_Das_Registered_Commits";
+  public static final String TIMER_REGISTERED_CONNECTION_ACQUISITION_TIME = "EntryPoints_Das_Registered_ConnectionAcquisitionTime";
+  public static final String TIMER_REGISTERED_CONNECTION_HOLD_TIME = "EntryPoints_Das_Registered_ConnectionHoldTime";
 
   private final IMeterCache meterCache;
+  private final DatabaseAccessBudgets budgets;
+  private final ConnectionLeakDetector connectionLeakDetector;
 
   public DatabaseAccessStatisticsEntryPointInterceptor(IMeterCache meterCache) {
+    this(meterCache, new EntryPointsProperties());
+  }
+
+  public DatabaseAccessStatisticsEntryPointInterceptor(IMeterCache meterCache, EntryPointsProperties entryPointsProperties) {
     this.meterCache = meterCache;
+    this.budgets = new DatabaseAccessBudgets(entryPointsProperties, meterCache);
+    this.connectionLeakDetector = new ConnectionLeakDetector(entryPointsProperties, meterCache);
   }
 
   @Override
   public <T> T intercept(TwContext context, Supplier<T> supplier) {
     Map<String, DatabaseAccessStatistics> dbDasMap = new ConcurrentHashMap<>();
+    final DatabaseAccessBudget budget = budgets.create(context);
+    final OpenConnections openConnections = connectionLeakDetector.create();
+    final T result;
     try {
       context.put(DatabaseAccessStatistics.TW_CONTEXT_KEY, dbDasMap);
+      // Also when there is no budget, so a nested entrypoint would not charge its parent's budget.
+      context.put(DatabaseAccessBudget.TW_CONTEXT_KEY, budget);
+      if (openConnections != null) {
+        context.put(OpenConnections.TW_CONTEXT_KEY, openConnections);
+      }
 
-      return supplier.get();
+      result = supplier.get();
     } finally {
       try {
         registerCall(context, dbDasMap);
+        if (openConnections != null) {
+          connectionLeakDetector.report(context, openConnections);
+        }
       } catch (Throwable t) {
         // TODO: Maybe should be throttled.
         log.error(t.getMessage(), t);
       }
     }
+
+    if (budget != null) {
+      budget.throwIfExceeded();
+    }
+    return result;
   }
 
   private void registerCall(TwContext context, Map<String, DatabaseAccessStatistics> dbDasMap) {
@@ -82,6 +109,8 @@ public class DatabaseAccessStatisticsEntryPointInterceptor implements TwContextE
         result.affectedRows = meterCache.summary(SUMMARY_REGISTERED_AFFECTED_ROWS, tags);
         result.fetchedRows = meterCache.summary(SUMMARY_REGISTERED_FETCHED_ROWS, tags);
         result.timeTakenNs = meterCache.timer(TIMER_REGISTERED_TIME_TAKEN, tags);
+        result.connectionAcquisitionTime = meterCache.timer(TIMER_REGISTERED_CONNECTION_ACQUISITION_TIME, tags);
+        result.connectionHoldTime = meterCache.timer(TIMER_REGISTERED_CONNECTION_HOLD_TIME, tags);
         return result;
       });
 
@@ -95,6 +124,8 @@ public class DatabaseAccessStatisticsEntryPointInterceptor implements TwContextE
       meters.affectedRows.record(das.getAffectedRowsCount());
       meters.fetchedRows.record(fetchedRowsCount);
       meters.timeTakenNs.record(timeTakenInDatabaseNs, TimeUnit.NANOSECONDS);
+      meters.connectionAcquisitionTime.record(das.getConnectionAcquisitionTimeNs(), TimeUnit.NANOSECONDS);
+      meters.connectionHoldTime.record(das.getConnectionHoldTimeNs(), TimeUnit.NANOSECONDS);
 
       if (log.isDebugEnabled()) {
         log.debug(
@@ -118,6 +149,8 @@ public class DatabaseAccessStatisticsEntryPointInterceptor implements TwContextE
     private DistributionSummary affectedRows;
     private DistributionSummary fetchedRows;
     private Timer timeTakenNs;
+    private Timer connectionAcquisitionTime;
+    private Timer connectionHoldTime;
   }
 
 
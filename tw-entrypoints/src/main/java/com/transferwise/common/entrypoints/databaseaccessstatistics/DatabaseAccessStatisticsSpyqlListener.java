@@ -34,6 +34,12 @@ public class DatabaseAccessStatisticsSpyqlListener implements SpyqlDataSourceLis
   @Setter
   private boolean strictMode;
 
+  /**
+   * When set, call sites of statements executed outside of entrypoints are sampled.
+   */
+  @Setter
+  private DasUnknownCallSites unknownCallSites;
+
   public DatabaseAccessStatisticsSpyqlListener(String databaseName) {
     this(databaseName, false);
   }
@@ -45,15 +51,29 @@ public class DatabaseAccessStatisticsSpyqlListener implements SpyqlDataSourceLis
 
   @Override
   public SpyqlConnectionListener onGetConnection(GetConnectionEvent event) {
-    DatabaseAccessStatistics.get(TwContext.current(), databaseName).registerConnectionOpened();
+    TwContext twContext = TwContext.current();
+    DatabaseAccessStatistics.get(twContext, databaseName).registerConnectionOpened(event.getExecutionTimeNs());
 
-    return new ConnectionListener();
+    return new ConnectionListener(System.nanoTime(), twContext.get(OpenConnections.TW_CONTEXT_KEY));
   }
 
   class ConnectionListener implements SpyqlConnectionListener {
 
+    private final long gotConnectionTimeNs;
+    /**
+     * Set, when connection leaks are detected for the entrypoint the connection was got in.
+     */
+    private final OpenConnections openConnections;
     private TransactionBeginEvent transactionBeginEvent;
 
+    ConnectionListener(long gotConnectionTimeNs, OpenConnections openConnections) {
+      this.gotConnectionTimeNs = gotConnectionTimeNs;
+      this.openConnections = openConnections;
+      if (openConnections != null) {
+        openConnections.opened(this, databaseName);
+      }
+    }
+
     @Override
     public void onTransactionBegin(TransactionBeginEvent event) {
       this.transactionBeginEvent = event;
@@ -61,25 +81,33 @@ public class DatabaseAccessStatisticsSpyqlListener implements SpyqlDataSourceLis
 
     @Override
     public void onTransactionCommit(TransactionCommitEvent event) {
-      currentDas().registerCommit(event.getExecutionTimeNs());
+      TwContext twContext = TwContext.current();
+      currentDas(twContext).registerCommit(event.getExecutionTimeNs());
+      registerBudgetTransaction(twContext, event.getExecutionTimeNs());
       registerEmptyTransaction();
     }
 
     @Override
     public void onTransactionCommitFailure(TransactionCommitFailureEvent event) {
-      currentDas().registerDatabaseAction(event.getExecutionTimeNs());
+      TwContext twContext = TwContext.current();
+      currentDas(twContext).registerDatabaseAction(event.getExecutionTimeNs());
+      registerBudgetDatabaseAction(twContext, event.getExecutionTimeNs());
       registerEmptyTransaction();
     }
 
     @Override
     public void onTransactionRollback(TransactionRollbackEvent event) {
-      currentDas().registerRollback(event.getExecutionTimeNs());
+      TwContext twContext = TwContext.current();
+      currentDas(twContext).registerRollback(event.getExecutionTimeNs());
+      registerBudgetTransaction(twContext, event.getExecutionTimeNs());
       registerEmptyTransaction();
     }
 
     @Override
     public void onTransactionRollbackFailure(TransactionRollbackFailureEvent event) {
-      currentDas().registerDatabaseAction(event.getExecutionTimeNs());
+      TwContext twContext = TwContext.current();
+      currentDas(twContext).registerDatabaseAction(event.getExecutionTimeNs());
+      registerBudgetDatabaseAction(twContext, event.getExecutionTimeNs());
       registerEmptyTransaction();
     }
 
@@ -90,8 +118,11 @@ public class DatabaseAccessStatisticsSpyqlListener implements SpyqlDataSourceLis
         RuntimeException e = new RuntimeException("Statement executed outside of an entrypoint.");
         log.error(e.getMessage(), e);
       }
+      if (unknownCallSites != null && twContext.get(DatabaseAccessStatistics.TW_CONTEXT_KEY) == null) {
+        unknownCallSites.registerStatement(databaseName);
+      }
 
-      DatabaseAccessStatistics das = currentDas();
+      DatabaseAccessStatistics das = currentDas(twContext);
       if (das.isLogSql()) {
         Throwable t = das.isLogSqlStacktrace() ? new RuntimeException("SQL stack") : null;
         if (event.isInTransaction()) {
@@ -101,21 +132,39 @@ public class DatabaseAccessStatisticsSpyqlListener implements SpyqlDataSourceLis
         }
       }
       das.registerQuery(event);
+
+      DatabaseAccessBudget budget = twContext.get(DatabaseAccessBudget.TW_CONTEXT_KEY);
+      if (budget != null) {
+        budget.registerQuery(event.getExecutionTimeNs(), event.getSql());
+      }
     }
 
     @Override
     public void onStatementExecuteFailure(StatementExecuteFailureEvent event) {
-      currentDas().registerDatabaseAction(event.getExecutionTimeNs());
+      TwContext twContext = TwContext.current();
+      currentDas(twContext).registerDatabaseAction(event.getExecutionTimeNs());
+      registerBudgetDatabaseAction(twContext, event.getExecutionTimeNs());
     }
 
     @Override
     public void onConnectionClose(ConnectionCloseEvent event) {
-      currentDas().registerConnectionClosed(event.getExecutionTimeNs());
+      TwContext twContext = TwContext.current();
+      currentDas(twContext).registerConnectionClosed(event.getExecutionTimeNs(), System.nanoTime() - gotConnectionTimeNs);
+      registerBudgetDatabaseAction(twContext, event.getExecutionTimeNs());
+      if (openConnections != null) {
+        openConnections.closed(this);
+      }
     }
 
     @Override
     public void onConnectionCloseFailure(ConnectionCloseFailureEvent event) {
-      currentDas().registerDatabaseAction(event.getExecutionTimeNs());
+      TwContext twContext = TwContext.current();
+      currentDas(twContext).registerDatabaseAction(event.getExecutionTimeNs());
+      registerBudgetDatabaseAction(twContext, event.getExecutionTimeNs());
+      // The application did close it, so it is not a leak.
+      if (openConnections != null) {
+        openConnections.closed(this);
+      }
     }
 
     @Override
@@ -131,6 +180,20 @@ public class DatabaseAccessStatisticsSpyqlListener implements SpyqlDataSourceLis
       return DatabaseAccessStatistics.get(twContext, databaseName);
     }
 
+    private void registerBudgetTransaction(TwContext twContext, long timeTakenNs) {
+      DatabaseAccessBudget budget = twContext.get(DatabaseAccessBudget.TW_CONTEXT_KEY);
+      if (budget != null) {
+        budget.registerTransaction(timeTakenNs);
+      }
+    }
+
+    private void registerBudgetDatabaseAction(TwContext twContext, long timeTakenNs) {
+      DatabaseAccessBudget budget = twContext.get(DatabaseAccessBudget.TW_CONTEXT_KEY);
+      if (budget != null) {
+        budget.registerDatabaseAction(timeTakenNs, null);
+      }
+    }
+
     private void registerEmptyTransaction() {
       if (transactionBeginEvent == null || transactionBeginEvent.getTransaction().isEmpty()) {
         currentDas().registerEmptyTransaction();
@@ -0,0 +1,40 @@
+package com.transferwise.common.entrypoints.databaseaccessstatistics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Data;
+
+/**
+ * Connections got in one entrypoint and not closed yet, with their acquisition sites.
+ */
+class OpenConnections {
+
+  static final String TW_CONTEXT_KEY = "DasOpenConnections";
+
+  private final CallSiteResolver callSiteResolver;
+  private final Map<Object, OpenConnection> connections = new ConcurrentHashMap<>();
+
+  OpenConnections(CallSiteResolver callSiteResolver) {
+    this.callSiteResolver = callSiteResolver;
+  }
+
+  void opened(Object connection, String databaseName) {
+    connections.put(connection, new OpenConnection(databaseName, callSiteResolver.resolve()));
+  }
+
+  void closed(Object connection) {
+    connections.remove(connection);
+  }
+
+  Collection<OpenConnection> getOpenConnections() {
+    return connections.values();
+  }
+
+  @Data
+  static class OpenConnection {
+
+    private final String databaseName;
+    private final String acquisitionSite;
+  }
+}
@@ -1,6 +1,8 @@
 package com.transferwise.common.entrypoints.executionstatistics;
 
 import static com.transferwise.common.entrypoints.executionstatistics.ExecutionStatisticsEntryPointInterceptor.METRIC_PREFIX_ENTRYPOINTS_ES;
+import static com.transferwise.common.entrypoints.executionstatistics.ExecutionStatisticsEntryPointInterceptor.SUMMARY_CONNECTION_WAIT_SHARE;
+import static com.transferwise.common.entrypoints.executionstatistics.ExecutionStatisticsEntryPointInterceptor.SUMMARY_DATABASE_TIME_SHARE;
 
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.Meter.Type;
@@ -9,10 +11,21 @@ import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
 
 public class EsMeterFilter implements MeterFilter {
 
+  /**
+   * Shares are distributions of fractions, so a few fixed buckets are enough to see if an entrypoint is database bound.
+   */
+  private static final double[] SHARE_BUCKETS = {0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 1};
+
   @Override
   public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
     if (id.getName().startsWith(METRIC_PREFIX_ENTRYPOINTS_ES)) {
-      if (id.getType() == Type.DISTRIBUTION_SUMMARY) {
+      if (id.getName().equals(SUMMARY_DATABASE_TIME_SHARE) || id.getName().equals(SUMMARY_CONNECTION_WAIT_SHARE)) {
+        return DistributionStatisticConfig.builder()
+            .percentilesHistogram(false)
+            .serviceLevelObjectives(SHARE_BUCKETS)
+            .build()
+            .merge(config);
+      } else if (id.getType() == Type.DISTRIBUTION_SUMMARY) {
         return DistributionStatisticConfig.builder()
             .percentilesHistogram(false)
             .maximumExpectedValue(1d)
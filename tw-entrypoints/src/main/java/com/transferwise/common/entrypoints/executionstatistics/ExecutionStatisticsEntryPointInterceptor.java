@@ -1,23 +1,86 @@
 package com.transferwise.common.entrypoints.executionstatistics;
 
-import com.transferwise.common.baseutils.clock.ClockHolder;
 import com.transferwise.common.baseutils.meters.cache.IMeterCache;
 import com.transferwise.common.baseutils.meters.cache.TagsSet;
 import com.transferwise.common.context.TwContext;
 import com.transferwise.common.context.TwContextExecutionInterceptor;
 import com.transferwise.common.context.TwContextMetricsTemplate;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import com.transferwise.common.entrypoints.databaseaccessstatistics.DatabaseAccessStatistics;
+import com.transferwise.common.entrypoints.executionstatistics.InFlightExecutions.InFlightCounter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 public class ExecutionStatisticsEntryPointInterceptor implements TwContextExecutionInterceptor {
 
   public static final String METRIC_PREFIX_ENTRYPOINTS_ES = "EntryPoints_Es_";
   public static final String TIMER_TIME_TAKEN = "EntryPoints_Es_timeTaken";
+  /**
+   * Fraction of the wall time, spent in databases.
+   */
+  public static final String SUMMARY_DATABASE_TIME_SHARE = "EntryPoints_Es_databaseTimeShare";
+  /**
+   * Fraction of the wall time, spent waiting for database connections.
+   */
+  public static final String SUMMARY_CONNECTION_WAIT_SHARE = "EntryPoints_Es_connectionWaitShare";
+  /**
+   * CPU time of the thread executing the entrypoint.
+   */
+  public static final String TIMER_CPU_TIME = "EntryPoints_Es_cpuTime";
+  /**
+   * Bytes allocated on the heap by the thread executing the entrypoint.
+   */
+  public static final String SUMMARY_ALLOCATED_BYTES = "EntryPoints_Es_allocatedBytes";
 
   private final IMeterCache meterCache;
+  private final ThreadMXBean threadMxBean;
+  /**
+   * Set, when allocated bytes are measured.
+   */
+  private final com.sun.management.ThreadMXBean allocationsThreadMxBean;
+  private final boolean cpuTimeEnabled;
+  /**
+   * Set, when in-flight executions are counted.
+   */
+  @Setter
+  private InFlightExecutions inFlightExecutions;
 
   public ExecutionStatisticsEntryPointInterceptor(IMeterCache meterCache) {
+    this(meterCache, new EntryPointsProperties());
+  }
+
+  public ExecutionStatisticsEntryPointInterceptor(IMeterCache meterCache, EntryPointsProperties entryPointsProperties) {
     this.meterCache = meterCache;
+    this.threadMxBean = ManagementFactory.getThreadMXBean();
+
+    final EntryPointsProperties.Es properties = entryPointsProperties.getEs();
+    boolean cpuTimeEnabled = false;
+    if (properties.isCpuTimeEnabled()) {
+      if (threadMxBean.isCurrentThreadCpuTimeSupported() && threadMxBean.isThreadCpuTimeEnabled()) {
+        cpuTimeEnabled = true;
+      } else {
+        log.warn("Thread CPU time is not supported or enabled by the JVM, `EntryPoints_Es_cpuTime` will not be recorded.");
+      }
+    }
+    this.cpuTimeEnabled = cpuTimeEnabled;
+
+    com.sun.management.ThreadMXBean allocationsThreadMxBean = null;
+    if (properties.isAllocatedBytesEnabled()) {
+      if (threadMxBean instanceof com.sun.management.ThreadMXBean
+          && ((com.sun.management.ThreadMXBean) threadMxBean).isThreadAllocatedMemorySupported()
+          && ((com.sun.management.ThreadMXBean) threadMxBean).isThreadAllocatedMemoryEnabled()) {
+        allocationsThreadMxBean = (com.sun.management.ThreadMXBean) threadMxBean;
+      } else {
+        log.warn("Thread allocated memory is not supported or enabled by the JVM, `EntryPoints_Es_allocatedBytes` will not be recorded.");
+      }
+    }
+    this.allocationsThreadMxBean = allocationsThreadMxBean;
   }
 
   @Override
@@ -27,16 +90,62 @@ public class ExecutionStatisticsEntryPointInterceptor implements TwContextExecut
 
   @Override
   public <T> T intercept(TwContext context, Supplier<T> supplier) {
-    long startTimeMs = ClockHolder.getClock().millis();
+    final long startCpuTimeNs = cpuTimeEnabled ? threadMxBean.getCurrentThreadCpuTime() : 0;
+    final long startAllocatedBytes = allocationsThreadMxBean != null ? allocationsThreadMxBean.getCurrentThreadAllocatedBytes() : 0;
+    final InFlightCounter inFlightCounter = inFlightExecutions == null ? null : inFlightExecutions.begin(
+        TagsSet.of(TwContextMetricsTemplate.TAG_EP_GROUP, context.getGroup(), TwContextMetricsTemplate.TAG_EP_NAME, context.getName(),
+            TwContextMetricsTemplate.TAG_EP_OWNER, context.getOwner()));
+    final long startTimeNs = System.nanoTime();
     try {
       return supplier.get();
     } finally {
+      long wallTimeNs = System.nanoTime() - startTimeNs;
+      if (inFlightCounter != null) {
+        inFlightExecutions.end(inFlightCounter);
+      }
       TwContext twContext = TwContext.current();
       TagsSet tagsSet = TagsSet.of(TwContextMetricsTemplate.TAG_EP_GROUP, twContext.getGroup(),
           TwContextMetricsTemplate.TAG_EP_NAME, twContext.getName(),
           TwContextMetricsTemplate.TAG_EP_OWNER, twContext.getOwner());
 
-      meterCache.timer(TIMER_TIME_TAKEN, tagsSet).record(ClockHolder.getClock().millis() - startTimeMs, TimeUnit.MILLISECONDS);
+      meterCache.timer(TIMER_TIME_TAKEN, tagsSet).record(wallTimeNs, TimeUnit.NANOSECONDS);
+      registerDatabaseTimeShares(context, tagsSet, wallTimeNs);
+      registerResourceUsage(tagsSet, startCpuTimeNs, startAllocatedBytes);
+    }
+  }
+
+  /**
+   * Only the thread executing the entrypoint is measured, work handed over to other threads is not included.
+   */
+  protected void registerResourceUsage(TagsSet tagsSet, long startCpuTimeNs, long startAllocatedBytes) {
+    if (cpuTimeEnabled) {
+      meterCache.timer(TIMER_CPU_TIME, tagsSet).record(threadMxBean.getCurrentThreadCpuTime() - startCpuTimeNs, TimeUnit.NANOSECONDS);
+    }
+    if (allocationsThreadMxBean != null) {
+      meterCache.summary(SUMMARY_ALLOCATED_BYTES, tagsSet).record(allocationsThreadMxBean.getCurrentThreadAllocatedBytes() - startAllocatedBytes);
+    }
+  }
+
+  /**
+   * Database times are measured by Spyql with {@link System#nanoTime()}, so the wall time is measured with the same clock.
+   *
+   * <p>Shares can go over 1, when the entrypoint uses databases from multiple threads in parallel.
+   */
+  protected void registerDatabaseTimeShares(TwContext context, TagsSet tagsSet, long wallTimeNs) {
+    // Not there, when database access statistics are disabled.
+    final Map<String, DatabaseAccessStatistics> dbDasMap = context.get(DatabaseAccessStatistics.TW_CONTEXT_KEY);
+    if (dbDasMap == null || wallTimeNs <= 0) {
+      return;
+    }
+
+    long timeInDatabaseNs = 0;
+    long connectionWaitNs = 0;
+    for (DatabaseAccessStatistics das : dbDasMap.values()) {
+      timeInDatabaseNs += das.getTimeTakenInDatabaseNs();
+      connectionWaitNs += das.getConnectionAcquisitionTimeNs();
     }
+
+    meterCache.summary(SUMMARY_DATABASE_TIME_SHARE, tagsSet).record((double) timeInDatabaseNs / wallTimeNs);
+    meterCache.summary(SUMMARY_CONNECTION_WAIT_SHARE, tagsSet).record((double) connectionWaitNs / wallTimeNs);
   }
 }
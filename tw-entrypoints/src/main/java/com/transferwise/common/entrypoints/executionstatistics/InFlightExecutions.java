@@ -0,0 +1,137 @@
+package com.transferwise.common.entrypoints.executionstatistics;
+
+import com.transferwise.common.baseutils.concurrency.IExecutorServicesProvider;
+import com.transferwise.common.baseutils.concurrency.ScheduledTaskExecutor.TaskHandle;
+import com.transferwise.common.baseutils.meters.cache.IMeterCache;
+import com.transferwise.common.baseutils.meters.cache.TagsSet;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import com.transferwise.common.gracefulshutdown.GracefulShutdownStrategy;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts the executions of each entrypoint running right now, and the peak of those in the previous peak window.
+ *
+ * <p>Gauges of entrypoints without executions for longer than the idle timeout, are removed.
+ */
+@Slf4j
+public class InFlightExecutions implements GracefulShutdownStrategy {
+
+  /**
+   * Executions running right now.
+   */
+  public static final String GAUGE_IN_FLIGHT = "EntryPoints_Es_inFlight";
+  /**
+   * Most executions running at the same time, in the previous peak window.
+   */
+  public static final String GAUGE_IN_FLIGHT_PEAK = "EntryPoints_Es_inFlightPeak";
+
+  /**
+   * Set as the in-flight count of a counter being removed, so no execution could be started on it anymore.
+   */
+  private static final long RETIRED = Long.MIN_VALUE;
+
+  private final MeterRegistry meterRegistry;
+  private final long idleTimeoutNs;
+  private final Map<TagsSet, InFlightCounter> counters = new ConcurrentHashMap<>();
+  private TaskHandle taskHandle;
+
+  public InFlightExecutions(IExecutorServicesProvider executorServicesProvider, IMeterCache meterCache,
+      EntryPointsProperties entryPointsProperties) {
+    this(meterCache, entryPointsProperties);
+
+    final Duration peakWindow = entryPointsProperties.getEs().getInFlight().getPeakWindow();
+    taskHandle = executorServicesProvider.getGlobalScheduledTaskExecutor().scheduleAtFixedInterval(this::endPeakWindow, peakWindow, peakWindow);
+  }
+
+  /**
+   * Without the scheduling, {@link #endPeakWindow()} has to be called explicitly.
+   */
+  InFlightExecutions(IMeterCache meterCache, EntryPointsProperties entryPointsProperties) {
+    this.meterRegistry = meterCache.getMeterRegistry();
+    this.idleTimeoutNs = entryPointsProperties.getEs().getInFlight().getIdleTimeout().toNanos();
+  }
+
+  /**
+   * The returned counter has to be given to {@link #end(InFlightCounter)}, when the execution ends.
+   */
+  public InFlightCounter begin(TagsSet tagsSet) {
+    while (true) {
+      final InFlightCounter counter = counters.computeIfAbsent(tagsSet, this::registerCounter);
+      final long inFlight = counter.inFlight.get();
+      if (inFlight == RETIRED) {
+        // Being removed, it will be gone from the map in a moment.
+        Thread.onSpinWait();
+        continue;
+      }
+      if (counter.inFlight.compareAndSet(inFlight, inFlight + 1)) {
+        counter.lastActiveTimeNs = System.nanoTime();
+        counter.peak.accumulateAndGet(inFlight + 1, Math::max);
+        return counter;
+      }
+    }
+  }
+
+  public void end(InFlightCounter counter) {
+    counter.lastActiveTimeNs = System.nanoTime();
+    counter.inFlight.decrementAndGet();
+  }
+
+  protected InFlightCounter registerCounter(TagsSet tagsSet) {
+    final InFlightCounter counter = new InFlightCounter(tagsSet);
+    counter.inFlightGauge = Gauge.builder(GAUGE_IN_FLIGHT, counter, c -> Math.max(c.inFlight.get(), 0))
+        .tags(tagsSet.getMicrometerTags()).register(meterRegistry);
+    counter.peakGauge = Gauge.builder(GAUGE_IN_FLIGHT_PEAK, counter, c -> c.previousPeak)
+        .tags(tagsSet.getMicrometerTags()).register(meterRegistry);
+    return counter;
+  }
+
+  /**
+   * Exposes the peaks of the window ending and removes the idle counters.
+   */
+  protected void endPeakWindow() {
+    final long nowNs = System.nanoTime();
+    for (InFlightCounter counter : counters.values()) {
+      // The next peak starts from the executions running right now.
+      counter.previousPeak = counter.peak.getAndSet(Math.max(counter.inFlight.get(), 0));
+      if (nowNs - counter.lastActiveTimeNs > idleTimeoutNs && counter.inFlight.compareAndSet(0, RETIRED)) {
+        // Meters have to be gone before the counter, so a new counter for the same entrypoint would get new gauges.
+        meterRegistry.remove(counter.inFlightGauge);
+        meterRegistry.remove(counter.peakGauge);
+        counters.remove(counter.tagsSet, counter);
+      }
+    }
+  }
+
+  public static class InFlightCounter {
+
+    private final TagsSet tagsSet;
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong peak = new AtomicLong();
+    private volatile long previousPeak;
+    private volatile long lastActiveTimeNs = System.nanoTime();
+    private Gauge inFlightGauge;
+    private Gauge peakGauge;
+
+    private InFlightCounter(TagsSet tagsSet) {
+      this.tagsSet = tagsSet;
+    }
+  }
+
+  @Override
+  public boolean canShutdown() {
+    return true;
+  }
+
+  @Override
+  public void applicationTerminating() {
+    if (taskHandle != null) {
+      taskHandle.stop();
+    }
+  }
+}
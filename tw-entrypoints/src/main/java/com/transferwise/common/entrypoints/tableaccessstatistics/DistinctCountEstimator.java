@@ -0,0 +1,68 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Estimates the number of distinct values seen, using linear counting over a fixed size bitmap.
+ *
+ * <p>Adding a value, which has already been seen, is just a read of one word. Nothing is allocated after construction.
+ *
+ * <p>Accurate within few percents, until the number of distinct values gets close to the number of bits.
+ */
+public class DistinctCountEstimator {
+
+  private final AtomicLongArray bits;
+  private final int mask;
+
+  /**
+   * Creates a new estimator.
+   *
+   * @param bitsCount has to be power of 2.
+   */
+  public DistinctCountEstimator(int bitsCount) {
+    if (bitsCount < 64 || Integer.bitCount(bitsCount) != 1) {
+      throw new IllegalArgumentException("Bits count has to be power of 2 and at least 64, but was " + bitsCount + ".");
+    }
+    this.bits = new AtomicLongArray(bitsCount / 64);
+    this.mask = bitsCount - 1;
+  }
+
+  public void add(Object value) {
+    final int bit = mix(value.hashCode()) & mask;
+    final int wordIdx = bit >>> 6;
+    final long bitMask = 1L << (bit & 63);
+
+    long word = bits.get(wordIdx);
+    while ((word & bitMask) == 0) {
+      if (bits.compareAndSet(wordIdx, word, word | bitMask)) {
+        return;
+      }
+      word = bits.get(wordIdx);
+    }
+  }
+
+  public long estimate() {
+    final int bitsCount = mask + 1;
+    long zeroBits = 0;
+    for (int i = 0; i < bits.length(); i++) {
+      zeroBits += Long.SIZE - Long.bitCount(bits.get(i));
+    }
+    if (zeroBits == 0) {
+      // Saturated, the best we can say.
+      zeroBits = 1;
+    }
+    return Math.round(bitsCount * Math.log((double) bitsCount / zeroBits));
+  }
+
+  /**
+   * Murmur3 finalizer, `String.hashCode()` alone is not spread well enough for the lower bits.
+   */
+  private static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+}
@@ -0,0 +1,382 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Hand-written parser for the most common, single table, statement shapes.
+ *
+ * <p>Recognizes `select ... from t ...`, `insert into t ...`, `update t set ...` and `delete from t ...` statements without sub-queries, joins,
+ * comments or multiple statements.
+ *
+ * <p>The parser is deliberately conservative. Whenever it can not be sure it would give the same result as JSqlParser and
+ * `CustomTablesNamesFinder`, it returns `null` and the caller is expected to fall back to the full parser.
+ *
+ * <p>Table names are returned as they are written in the statement, including quotes and schema, so they can go through the same
+ * post-processing as the table names found by JSqlParser.
+ */
+public class FastSqlParser {
+
+  private static final String[] SELECT_TABLE_FOLLOWERS = {"where", "order", "group", "having", "limit", "offset", "for"};
+  private static final String[] DELETE_TABLE_FOLLOWERS = {"where", "order", "limit"};
+  private static final String[] UPDATE_TABLE_FOLLOWERS = {"set"};
+  private static final String[] INSERT_TABLE_FOLLOWERS = {"values", "value", "set"};
+  private static final String[] INSERT_COLUMNS_FOLLOWERS = {"values", "value"};
+
+  /**
+   * Words, which can not be table names in our supported shapes, but would be lexically accepted as such.
+   */
+  private static final String[] NOT_TABLE_NAMES = {"select", "values", "value", "set", "where", "table", "only", "lateral", "dual", "ignore",
+      "low_priority", "high_priority", "delayed", "quick", "into", "from", "join"};
+
+  /**
+   * Words, which can bring in additional tables or statements.
+   *
+   * <p>`lock` is here, because JSqlParser can not parse `lock in share mode` and we want to give exactly the same results.
+   */
+  private static final String[] FORBIDDEN_WORDS = {"select", "from", "join", "using", "into", "table", "lateral", "lock"};
+
+  /**
+   * Returns the parse result or `null`, when the statement is not in one of the supported shapes.
+   */
+  public Result parse(String sql) {
+    if (sql == null) {
+      return null;
+    }
+
+    final Lexer lexer = new Lexer(sql);
+    if (lexer.next() != TokenType.WORD) {
+      return null;
+    }
+
+    if (lexer.isKeyword("select")) {
+      return parseSelect(lexer);
+    } else if (lexer.isKeyword("insert")) {
+      return parseInsert(lexer);
+    } else if (lexer.isKeyword("update")) {
+      return parseUpdate(lexer);
+    } else if (lexer.isKeyword("delete")) {
+      return parseDelete(lexer);
+    }
+    return null;
+  }
+
+  protected Result parseSelect(Lexer lexer) {
+    // Select list, up to the first top level `from`.
+    int depth = 0;
+    while (true) {
+      final TokenType tokenType = lexer.next();
+      if (tokenType == TokenType.END || tokenType == TokenType.UNSUPPORTED || tokenType == TokenType.SEMICOLON) {
+        return null;
+      } else if (tokenType == TokenType.OPEN) {
+        depth++;
+      } else if (tokenType == TokenType.CLOSE) {
+        if (--depth < 0) {
+          return null;
+        }
+      } else if (tokenType == TokenType.WORD) {
+        if (lexer.isKeyword("select") || lexer.isKeyword("into")) {
+          return null;
+        }
+        if (depth == 0 && lexer.isKeyword("from")) {
+          break;
+        }
+      }
+    }
+
+    lexer.next();
+    final String tableName = parseTableName(lexer);
+    if (tableName == null || !skipAlias(lexer) || !isEndOrFollower(lexer, SELECT_TABLE_FOLLOWERS) || !skipRest(lexer)) {
+      return null;
+    }
+    return new Result().setOperationName("select").setTableName(tableName);
+  }
+
+  protected Result parseInsert(Lexer lexer) {
+    lexer.next();
+    if (lexer.isKeyword("ignore")) {
+      lexer.next();
+    }
+    if (!lexer.isKeyword("into")) {
+      return null;
+    }
+
+    lexer.next();
+    final String tableName = parseTableName(lexer);
+    if (tableName == null) {
+      return null;
+    }
+
+    if (lexer.type == TokenType.OPEN) {
+      if (!skipColumnsList(lexer) || !lexer.isAnyKeyword(INSERT_COLUMNS_FOLLOWERS)) {
+        return null;
+      }
+    } else if (!lexer.isAnyKeyword(INSERT_TABLE_FOLLOWERS)) {
+      return null;
+    }
+
+    if (!skipRest(lexer)) {
+      return null;
+    }
+    return new Result().setOperationName("insert").setTableName(tableName);
+  }
+
+  protected Result parseUpdate(Lexer lexer) {
+    lexer.next();
+    final String tableName = parseTableName(lexer);
+    if (tableName == null || !skipAlias(lexer) || !lexer.isAnyKeyword(UPDATE_TABLE_FOLLOWERS) || !skipRest(lexer)) {
+      return null;
+    }
+    return new Result().setOperationName("update").setTableName(tableName);
+  }
+
+  protected Result parseDelete(Lexer lexer) {
+    lexer.next();
+    if (!lexer.isKeyword("from")) {
+      return null;
+    }
+
+    lexer.next();
+    final String tableName = parseTableName(lexer);
+    if (tableName == null || !isEndOrFollower(lexer, DELETE_TABLE_FOLLOWERS) || !skipRest(lexer)) {
+      return null;
+    }
+    return new Result().setOperationName("delete").setTableName(tableName);
+  }
+
+  /**
+   * Parses `name`, `schema.name`, `` `schema`.`name` `` and similar, starting from the current token.
+   *
+   * <p>Leaves the lexer on the token following the name.
+   */
+  protected String parseTableName(Lexer lexer) {
+    if (lexer.type == TokenType.WORD) {
+      if (lexer.isAnyKeyword(NOT_TABLE_NAMES)) {
+        return null;
+      }
+    } else if (lexer.type != TokenType.QUOTED) {
+      return null;
+    }
+
+    final int nameStart = lexer.start;
+    int nameEnd = lexer.end;
+    while (lexer.next() == TokenType.DOT) {
+      // JSqlParser would drop the whitespace around dots, we just do not bother.
+      if (lexer.start != nameEnd) {
+        return null;
+      }
+      final int dotEnd = lexer.end;
+      final TokenType tokenType = lexer.next();
+      if ((tokenType != TokenType.WORD && tokenType != TokenType.QUOTED) || lexer.start != dotEnd) {
+        return null;
+      }
+      nameEnd = lexer.end;
+    }
+
+    return lexer.sql.substring(nameStart, nameEnd);
+  }
+
+  /**
+   * Skips an optional table alias, e.g. `t`, `as t`.
+   */
+  protected boolean skipAlias(Lexer lexer) {
+    if (lexer.isKeyword("as")) {
+      final TokenType tokenType = lexer.next();
+      if (tokenType != TokenType.WORD && tokenType != TokenType.QUOTED) {
+        return false;
+      }
+      lexer.next();
+    } else if ((lexer.type == TokenType.WORD && !lexer.isKeyword("set") && !lexer.isAnyKeyword(SELECT_TABLE_FOLLOWERS))
+        || lexer.type == TokenType.QUOTED) {
+      lexer.next();
+    }
+    return true;
+  }
+
+  protected boolean isEndOrFollower(Lexer lexer, String[] followers) {
+    return lexer.type == TokenType.END || lexer.isAnyKeyword(followers);
+  }
+
+  /**
+   * Skips `(a, b, c)`, leaving the lexer on the token following the closing parenthesis.
+   */
+  protected boolean skipColumnsList(Lexer lexer) {
+    while (true) {
+      final TokenType tokenType = lexer.next();
+      if (tokenType == TokenType.CLOSE) {
+        lexer.next();
+        return true;
+      } else if (tokenType != TokenType.WORD && tokenType != TokenType.QUOTED && tokenType != TokenType.COMMA
+          && tokenType != TokenType.DOT) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Checks that the remainder of the statement can not reference any other tables.
+   */
+  protected boolean skipRest(Lexer lexer) {
+    while (lexer.type != TokenType.END) {
+      if (lexer.type == TokenType.UNSUPPORTED || lexer.type == TokenType.SEMICOLON) {
+        return false;
+      }
+      if (lexer.isAnyKeyword(FORBIDDEN_WORDS)) {
+        return false;
+      }
+      lexer.next();
+    }
+    return true;
+  }
+
+  @Data
+  @Accessors(chain = true)
+  public static class Result {
+
+    private String operationName;
+    private String tableName;
+  }
+
+  enum TokenType {
+    END,
+    WORD,
+    QUOTED,
+    LITERAL,
+    OPEN,
+    CLOSE,
+    COMMA,
+    DOT,
+    SEMICOLON,
+    OTHER,
+    /**
+     * Something we do not want to deal with, for example comments or strings with backslash escapes.
+     */
+    UNSUPPORTED
+  }
+
+  /**
+   * Minimal lexer, not allocating anything for tokens.
+   */
+  static class Lexer {
+
+    private final String sql;
+    private final int length;
+    private int pos;
+
+    private TokenType type;
+    private int start;
+    private int end;
+
+    Lexer(String sql) {
+      this.sql = sql;
+      this.length = sql.length();
+    }
+
+    TokenType next() {
+      if (type == TokenType.UNSUPPORTED) {
+        return type;
+      }
+
+      while (pos < length && Character.isWhitespace(sql.charAt(pos))) {
+        pos++;
+      }
+
+      final int tokenStart = pos;
+      if (pos >= length) {
+        return token(TokenType.END, tokenStart);
+      }
+
+      final char c = sql.charAt(pos);
+      if (Character.isLetter(c) || c == '_') {
+        pos++;
+        while (pos < length && isIdentifierPart(sql.charAt(pos))) {
+          pos++;
+        }
+        return token(TokenType.WORD, tokenStart);
+      } else if (Character.isDigit(c)) {
+        pos++;
+        while (pos < length && (Character.isLetterOrDigit(sql.charAt(pos)) || sql.charAt(pos) == '.')) {
+          pos++;
+        }
+        return token(TokenType.LITERAL, tokenStart);
+      } else if (c == '`' || c == '"') {
+        final int closingQuote = sql.indexOf(c, pos + 1);
+        // Escaped quotes inside identifiers are too exotic to bother with.
+        if (closingQuote < 0 || (closingQuote + 1 < length && sql.charAt(closingQuote + 1) == c)) {
+          return token(TokenType.UNSUPPORTED, tokenStart);
+        }
+        pos = closingQuote + 1;
+        return token(TokenType.QUOTED, tokenStart);
+      } else if (c == '\'') {
+        return stringLiteral(tokenStart);
+      } else if ((c == '-' && pos + 1 < length && sql.charAt(pos + 1) == '-')
+          || (c == '/' && pos + 1 < length && sql.charAt(pos + 1) == '*')
+          || c == '#') {
+        return token(TokenType.UNSUPPORTED, tokenStart);
+      }
+
+      pos++;
+      switch (c) {
+        case '(':
+          return token(TokenType.OPEN, tokenStart);
+        case ')':
+          return token(TokenType.CLOSE, tokenStart);
+        case ',':
+          return token(TokenType.COMMA, tokenStart);
+        case '.':
+          return token(TokenType.DOT, tokenStart);
+        case ';':
+          return token(TokenType.SEMICOLON, tokenStart);
+        default:
+          return token(TokenType.OTHER, tokenStart);
+      }
+    }
+
+    boolean isKeyword(String keyword) {
+      return type == TokenType.WORD && end - start == keyword.length() && sql.regionMatches(true, start, keyword, 0, keyword.length());
+    }
+
+    boolean isAnyKeyword(String[] keywords) {
+      if (type != TokenType.WORD) {
+        return false;
+      }
+      for (String keyword : keywords) {
+        if (isKeyword(keyword)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private TokenType stringLiteral(int tokenStart) {
+      pos++;
+      while (pos < length) {
+        final char c = sql.charAt(pos);
+        if (c == '\\') {
+          // Backslash escapes are dialect and configuration specific.
+          return token(TokenType.UNSUPPORTED, tokenStart);
+        } else if (c == '\'') {
+          if (pos + 1 < length && sql.charAt(pos + 1) == '\'') {
+            pos += 2;
+            continue;
+          }
+          pos++;
+          return token(TokenType.LITERAL, tokenStart);
+        }
+        pos++;
+      }
+      return token(TokenType.UNSUPPORTED, tokenStart);
+    }
+
+    private TokenType token(TokenType type, int tokenStart) {
+      this.type = type;
+      this.start = tokenStart;
+      this.end = pos;
+      return type;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+      return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+  }
+}
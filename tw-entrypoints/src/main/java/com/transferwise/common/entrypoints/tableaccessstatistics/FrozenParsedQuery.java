@@ -0,0 +1,117 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, array-backed form of {@link ParsedQuery}, as kept in the parse results cache.
+ *
+ * <p>Operations and their tables are kept in the order they were visited, so the first table of an operation is the main one. Names are
+ * deduplicated through {@link NamesPool}.
+ */
+public final class FrozenParsedQuery {
+
+  public static final FrozenParsedQuery EMPTY = new FrozenParsedQuery(new String[0], new String[0][]);
+
+  private final String[] operationNames;
+  /**
+   * Table names of each operation, indexed the same way as the operation names.
+   */
+  private final String[][] tableNames;
+
+  private FrozenParsedQuery(String[] operationNames, String[][] tableNames) {
+    this.operationNames = operationNames;
+    this.tableNames = tableNames;
+  }
+
+  public static FrozenParsedQuery of(ParsedQuery parsedQuery) {
+    if (parsedQuery == null || parsedQuery.getOperations() == null || parsedQuery.getOperations().isEmpty()) {
+      return EMPTY;
+    }
+
+    final Map<String, ParsedQuery.SqlOperation> operations = parsedQuery.getOperations();
+    final String[] operationNames = new String[operations.size()];
+    final String[][] tableNames = new String[operations.size()][];
+    int i = 0;
+    for (Map.Entry<String, ParsedQuery.SqlOperation> entry : operations.entrySet()) {
+      operationNames[i] = NamesPool.intern(entry.getKey());
+      final Set<String> opTableNames = entry.getValue() == null ? null : entry.getValue().getTableNames();
+      if (opTableNames == null) {
+        tableNames[i] = new String[0];
+      } else {
+        tableNames[i] = new String[opTableNames.size()];
+        int j = 0;
+        for (String tableName : opTableNames) {
+          tableNames[i][j++] = NamesPool.intern(tableName);
+        }
+      }
+      i++;
+    }
+    return new FrozenParsedQuery(operationNames, tableNames);
+  }
+
+  public boolean isEmpty() {
+    return operationNames.length == 0;
+  }
+
+  public int getOperationsCount() {
+    return operationNames.length;
+  }
+
+  public String getOperationName(int operationIdx) {
+    return operationNames[operationIdx];
+  }
+
+  public int getTablesCount(int operationIdx) {
+    return tableNames[operationIdx].length;
+  }
+
+  public String getTableName(int operationIdx, int tableIdx) {
+    return tableNames[operationIdx][tableIdx];
+  }
+
+  /**
+   * Mutable copy, for example for a {@link TasQueryParsingListener}.
+   */
+  public ParsedQuery toParsedQuery() {
+    final ParsedQuery parsedQuery = new ParsedQuery();
+    for (int i = 0; i < operationNames.length; i++) {
+      final ParsedQuery.SqlOperation sqlOperation = new ParsedQuery.SqlOperation();
+      for (String tableName : tableNames[i]) {
+        sqlOperation.addTable(tableName);
+      }
+      parsedQuery.addOperation(operationNames[i], sqlOperation);
+    }
+    return parsedQuery;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof FrozenParsedQuery)) {
+      return false;
+    }
+    final FrozenParsedQuery other = (FrozenParsedQuery) o;
+    return Arrays.equals(operationNames, other.operationNames) && Arrays.deepEquals(tableNames, other.tableNames);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(operationNames) + Arrays.deepHashCode(tableNames);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("FrozenParsedQuery(");
+    for (int i = 0; i < operationNames.length; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(operationNames[i]).append('=').append(Arrays.toString(tableNames[i]));
+    }
+    return sb.append(')').toString();
+  }
+}
@@ -0,0 +1,35 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pool for operation and table names, so all parse results would share the same instances.
+ *
+ * <p>Unlike {@link String#intern()}, the pool is bounded and does not compete with the rest of the application for the JVM string table.
+ * Once full, names are just not deduplicated anymore.
+ */
+final class NamesPool {
+
+  static final int MAX_SIZE = 100_000;
+
+  private static final Map<String, String> names = new ConcurrentHashMap<>();
+
+  private NamesPool() {
+  }
+
+  static String intern(String name) {
+    if (name == null) {
+      return null;
+    }
+    final String pooled = names.get(name);
+    if (pooled != null) {
+      return pooled;
+    }
+    if (names.size() >= MAX_SIZE) {
+      return name;
+    }
+    final String previous = names.putIfAbsent(name, name);
+    return previous == null ? name : previous;
+  }
+}
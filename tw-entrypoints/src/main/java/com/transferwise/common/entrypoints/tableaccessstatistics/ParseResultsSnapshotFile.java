@@ -0,0 +1,159 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import com.transferwise.common.entrypoints.tableaccessstatistics.ParsedQuery.SqlOperation;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compact binary file of parse results, keyed by the parse results cache key.
+ *
+ * <p>Layout is `magic, format, version, count` followed by `count` times `key, operationsCount, (operation, tablesCount, tables...)...`.
+ * All strings are length prefixed UTF-8. A key is a type byte followed by either a string or a {@link SqlFingerprint}.
+ *
+ * <p>A file written with a different version is ignored as a whole, so any change in how statements get parsed, can invalidate it.
+ */
+@Slf4j
+public class ParseResultsSnapshotFile {
+
+  private static final int MAGIC = 0x54574550;
+  private static final int FORMAT = 1;
+
+  private static final byte KEY_TYPE_SQL = 0;
+  private static final byte KEY_TYPE_FINGERPRINT = 1;
+  private static final byte KEY_TYPE_VERIFIED_FINGERPRINT = 2;
+
+  /**
+   * Writes into a temporary file first and then moves it over the target, so readers would never see a partially written file.
+   */
+  public void write(Path file, String version, Map<Object, FrozenParsedQuery> parseResults) throws IOException {
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    final Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT);
+      writeString(out, version);
+      out.writeInt(parseResults.size());
+
+      for (Entry<Object, FrozenParsedQuery> entry : parseResults.entrySet()) {
+        writeKey(out, entry.getKey());
+        final FrozenParsedQuery parsedQuery = entry.getValue();
+        out.writeInt(parsedQuery.getOperationsCount());
+        for (int i = 0; i < parsedQuery.getOperationsCount(); i++) {
+          writeString(out, parsedQuery.getOperationName(i));
+          out.writeInt(parsedQuery.getTablesCount(i));
+          for (int j = 0; j < parsedQuery.getTablesCount(i); j++) {
+            writeString(out, parsedQuery.getTableName(i, j));
+          }
+        }
+      }
+    }
+
+    Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Reads the parse results through a memory mapping.
+   *
+   * @return empty map, when the file does not exist, is corrupted or was written with a different version.
+   */
+  public Map<Object, FrozenParsedQuery> read(Path file, String version) {
+    final Map<Object, FrozenParsedQuery> result = new LinkedHashMap<>();
+    if (!Files.isRegularFile(file)) {
+      return result;
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+      if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+        log.warn("File '{}' is not a parse results snapshot, ignoring it.", file);
+        return result;
+      }
+      final String fileVersion = readString(buffer);
+      if (!version.equals(fileVersion)) {
+        log.info("Parse results snapshot '{}' was written by version '{}', but we are '{}'. Ignoring it.", file, fileVersion, version);
+        return result;
+      }
+
+      final int count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+        final Object key = readKey(buffer);
+        final ParsedQuery parsedQuery = new ParsedQuery();
+        final int operationsCount = buffer.getInt();
+        for (int j = 0; j < operationsCount; j++) {
+          final String operationName = readString(buffer);
+          final SqlOperation sqlOperation = new SqlOperation();
+          final int tablesCount = buffer.getInt();
+          for (int k = 0; k < tablesCount; k++) {
+            sqlOperation.addTable(readString(buffer));
+          }
+          parsedQuery.addOperation(operationName, sqlOperation);
+        }
+        result.put(key, FrozenParsedQuery.of(parsedQuery));
+      }
+    } catch (Exception e) {
+      log.warn("Parse results snapshot '{}' could not be read, ignoring it.", file, e);
+      result.clear();
+    }
+    return result;
+  }
+
+  private static void writeKey(DataOutputStream out, Object key) throws IOException {
+    if (key instanceof SqlFingerprint) {
+      final SqlFingerprint fingerprint = (SqlFingerprint) key;
+      out.writeByte(fingerprint.getSql() == null ? KEY_TYPE_FINGERPRINT : KEY_TYPE_VERIFIED_FINGERPRINT);
+      out.writeLong(fingerprint.getHigh());
+      out.writeLong(fingerprint.getLow());
+      if (fingerprint.getSql() != null) {
+        writeString(out, fingerprint.getSql());
+      }
+    } else {
+      out.writeByte(KEY_TYPE_SQL);
+      writeString(out, (String) key);
+    }
+  }
+
+  private static Object readKey(ByteBuffer buffer) {
+    final byte keyType = buffer.get();
+    if (keyType == KEY_TYPE_SQL) {
+      return readString(buffer);
+    } else if (keyType == KEY_TYPE_FINGERPRINT) {
+      return new SqlFingerprint(buffer.getLong(), buffer.getLong(), null);
+    } else if (keyType == KEY_TYPE_VERIFIED_FINGERPRINT) {
+      final long high = buffer.getLong();
+      final long low = buffer.getLong();
+      return new SqlFingerprint(high, low, readString(buffer));
+    }
+    throw new IllegalStateException("Unknown key type " + keyType + ".");
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    final int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new IllegalStateException("Invalid string length " + length + ".");
+    }
+    final byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
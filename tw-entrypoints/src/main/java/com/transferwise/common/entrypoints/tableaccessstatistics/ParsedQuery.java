@@ -1,17 +1,23 @@
 package com.transferwise.common.entrypoints.tableaccessstatistics;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import lombok.Data;
 import lombok.experimental.Accessors;
 
+/**
+ * Mutable builder of a parse result, for interceptors and registries.
+ *
+ * <p>Operations and tables are kept in the order they were added. The first table of an operation is considered its main table.
+ * For caching, it gets converted into a {@link FrozenParsedQuery}.
+ */
 @Data
 @Accessors(chain = true)
 public class ParsedQuery {
 
-  private Map<String, SqlOperation> operations = new HashMap<>();
+  private Map<String, SqlOperation> operations = new LinkedHashMap<>();
 
   public ParsedQuery addOperation(String operationName, SqlOperation operation) {
     operations.put(operationName, operation);
@@ -22,7 +28,7 @@ public class ParsedQuery {
   @Accessors(chain = true)
   public static class SqlOperation {
 
-    private Set<String> tableNames = new HashSet<>();
+    private Set<String> tableNames = new LinkedHashSet<>();
 
     public SqlOperation addTable(String table) {
       tableNames.add(table);
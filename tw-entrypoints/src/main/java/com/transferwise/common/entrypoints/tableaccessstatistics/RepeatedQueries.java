@@ -0,0 +1,51 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+/**
+ * How many times each statement shape was executed in one entrypoint, to detect N+1 problems.
+ *
+ * <p>Shapes are identified by the normalized statement's parse results cache key, so counting is a lookup in a fixed size open
+ * addressing table, without any allocations. Shapes not fitting into the table are not tracked.
+ */
+public class RepeatedQueries {
+
+  public static final String TW_CONTEXT_KEY = "RepeatedQueries";
+
+  private final Object[] shapes;
+  private final int[] counts;
+  private final int mask;
+  private final int maxShapes;
+  private int size;
+
+  public RepeatedQueries(int maxShapes) {
+    this.maxShapes = maxShapes;
+    // At most half full, so the probe sequences stay short.
+    final int capacity = Integer.highestOneBit(Math.max(2, maxShapes) * 2 - 1) << 1;
+    this.shapes = new Object[capacity];
+    this.counts = new int[capacity];
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Statements of one entrypoint can come from multiple threads, but the lock is uncontended in practice.
+   *
+   * @return the shape's count after adding, or 0 when the shape is not tracked.
+   */
+  public synchronized int add(Object shape, int count) {
+    final int hash = shape.hashCode();
+    int i = (hash ^ (hash >>> 16)) & mask;
+    while (true) {
+      final Object existing = shapes[i];
+      if (existing == null) {
+        if (size >= maxShapes) {
+          return 0;
+        }
+        shapes[i] = shape;
+        size++;
+        return counts[i] = count;
+      } else if (existing.equals(shape)) {
+        return counts[i] += count;
+      }
+      i = (i + 1) & mask;
+    }
+  }
+}
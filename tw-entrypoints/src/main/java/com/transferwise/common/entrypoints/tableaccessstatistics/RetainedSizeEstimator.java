@@ -0,0 +1,72 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+/**
+ * Estimates the heap retained by a parse results cache entry, assuming a 64-bit JVM with compressed oops and compact strings.
+ *
+ * <p>Operation and table names are pooled and shared between entries, so those are not counted.
+ */
+public class RetainedSizeEstimator {
+
+  private static final int OBJECT_HEADER = 12;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 4;
+
+  private static final int STRING = align(OBJECT_HEADER + REFERENCE + 4 + 1 + 1);
+  private static final int SQL_FINGERPRINT = align(OBJECT_HEADER + 8 + 8 + REFERENCE);
+  private static final int FROZEN_PARSED_QUERY = align(OBJECT_HEADER + 2 * REFERENCE);
+  /**
+   * Caffeine's node for a bounded, weighted cache with stats.
+   */
+  private static final int CACHE_NODE = 64;
+
+  public int estimate(Object key, FrozenParsedQuery parsedQuery) {
+    long size = CACHE_NODE + estimateKey(key) + estimateParsedQuery(parsedQuery);
+    return (int) Math.min(Integer.MAX_VALUE, size);
+  }
+
+  protected long estimateKey(Object key) {
+    if (key instanceof String) {
+      return estimateString((String) key);
+    } else if (key instanceof SqlFingerprint) {
+      final String sql = ((SqlFingerprint) key).getSql();
+      return SQL_FINGERPRINT + (sql == null ? 0 : estimateString(sql));
+    }
+    return OBJECT_HEADER;
+  }
+
+  protected long estimateParsedQuery(FrozenParsedQuery parsedQuery) {
+    if (parsedQuery == null || parsedQuery == FrozenParsedQuery.EMPTY) {
+      return 0;
+    }
+    final int operationsCount = parsedQuery.getOperationsCount();
+    // The object, the operation names array and the array of table names arrays.
+    long size = FROZEN_PARSED_QUERY + 2 * estimateArray(operationsCount);
+    for (int i = 0; i < operationsCount; i++) {
+      size += estimateArray(parsedQuery.getTablesCount(i));
+    }
+    return size;
+  }
+
+  protected long estimateString(String value) {
+    boolean latin1 = true;
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) > 0xFF) {
+        latin1 = false;
+        break;
+      }
+    }
+    return STRING + align(ARRAY_HEADER + (long) value.length() * (latin1 ? 1 : 2));
+  }
+
+  protected long estimateArray(int length) {
+    return align(ARRAY_HEADER + (long) length * REFERENCE);
+  }
+
+  private static int align(int size) {
+    return (size + 7) & ~7;
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+}
@@ -0,0 +1,41 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import java.util.List;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * One of the slowest statements, as kept by {@link SlowestStatements}.
+ *
+ * <p>Only set before it is added, and not changed afterwards.
+ */
+@Data
+@Accessors(chain = true)
+public class SlowStatement {
+
+  /**
+   * Fingerprint of the normalized statement, same for all variants differing only by literals.
+   */
+  private String fingerprint;
+  /**
+   * Normalized and abbreviated statement, so it would not contain any literal values.
+   *
+   * <p>{@code null}, when the statement could not be normalized, for example because of backslash escapes in its literals.
+   */
+  private String sql;
+  private String database;
+  private String entryPointGroup;
+  private String entryPointName;
+  private String entryPointOwner;
+  /**
+   * Tables the statement accessed, as resolved by the table access statistics. Empty, when the statement was not parsed.
+   */
+  private List<String> tables;
+  private long executionTimeNs;
+  /**
+   * Rows affected by the statement, as reported by the driver. Rows fetched afterwards from a result set, are not included.
+   */
+  private long affectedRows;
+  private boolean succeeded;
+  private long timestampMs;
+}
@@ -0,0 +1,147 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free buffer of the slowest statements executed within a rolling window.
+ *
+ * <p>Statements are kept in a fixed array of slots, each replaced with a compare-and-set. A new statement takes the slot of an expired
+ * one, or the slot of the fastest kept statement, when it is slower than that. Only the slowest execution of each fingerprint and database
+ * is kept, so one slow statement executed many times would not take over all the slots.
+ *
+ * <p>The execution time a statement has to exceed to get in, is cached, so the statements not getting in cost just a few reads. Under
+ * concurrent updates, the cached value is only a hint, and the kept statements are the slowest ones only approximately.
+ */
+public class SlowestStatements {
+
+  private static final int MAX_ADD_ATTEMPTS = 3;
+
+  private final AtomicReferenceArray<SlowStatement> slots;
+  private final long windowMs;
+  private final long minExecutionTimeNs;
+
+  /**
+   * Execution time of the fastest kept statement, or -1 when there are free slots.
+   */
+  private volatile long thresholdNs = -1;
+  /**
+   * When the first of the kept statements expires, after which the threshold does not apply anymore.
+   */
+  private volatile long thresholdValidUntilMs = Long.MAX_VALUE;
+
+  public SlowestStatements(EntryPointsProperties entryPointsProperties) {
+    var properties = entryPointsProperties.getTas().getSlowestStatements();
+    this.slots = new AtomicReferenceArray<>(Math.max(1, properties.getSize()));
+    this.windowMs = properties.getWindow().toMillis();
+    this.minExecutionTimeNs = properties.getMinExecutionTime().toNanos();
+  }
+
+  /**
+   * Tells, if a statement with that execution time could get in, so the caller would build the {@link SlowStatement} only then.
+   */
+  public boolean isCandidate(long executionTimeNs) {
+    if (executionTimeNs < minExecutionTimeNs) {
+      return false;
+    }
+    return executionTimeNs > thresholdNs || System.currentTimeMillis() >= thresholdValidUntilMs;
+  }
+
+  public void add(SlowStatement statement) {
+    final long nowMs = statement.getTimestampMs();
+    try {
+      for (int attempt = 0; attempt < MAX_ADD_ATTEMPTS; attempt++) {
+        int sameIdx = -1;
+        int freeIdx = -1;
+        int fastestIdx = -1;
+        SlowStatement same = null;
+        SlowStatement free = null;
+        SlowStatement fastest = null;
+
+        for (int i = 0; i < slots.length(); i++) {
+          final SlowStatement slot = slots.get(i);
+          if (slot == null || isExpired(slot, nowMs)) {
+            if (freeIdx == -1) {
+              freeIdx = i;
+              free = slot;
+            }
+          } else if (isSameStatement(slot, statement)) {
+            sameIdx = i;
+            same = slot;
+          } else if (fastest == null || slot.getExecutionTimeNs() < fastest.getExecutionTimeNs()) {
+            fastestIdx = i;
+            fastest = slot;
+          }
+        }
+
+        final int idx;
+        final SlowStatement expected;
+        if (same != null) {
+          if (same.getExecutionTimeNs() >= statement.getExecutionTimeNs()) {
+            return;
+          }
+          idx = sameIdx;
+          expected = same;
+        } else if (freeIdx != -1) {
+          idx = freeIdx;
+          expected = free;
+        } else if (fastest != null && fastest.getExecutionTimeNs() < statement.getExecutionTimeNs()) {
+          idx = fastestIdx;
+          expected = fastest;
+        } else {
+          return;
+        }
+
+        if (slots.compareAndSet(idx, expected, statement)) {
+          return;
+        }
+      }
+    } finally {
+      updateThreshold(nowMs);
+    }
+  }
+
+  /**
+   * Returns the statements executed within the window, the slowest first.
+   */
+  public List<SlowStatement> getStatements() {
+    final long nowMs = System.currentTimeMillis();
+    final List<SlowStatement> result = new ArrayList<>();
+    for (int i = 0; i < slots.length(); i++) {
+      final SlowStatement slot = slots.get(i);
+      if (slot != null && !isExpired(slot, nowMs)) {
+        result.add(slot);
+      }
+    }
+    result.sort(Comparator.comparingLong(SlowStatement::getExecutionTimeNs).reversed());
+    return result;
+  }
+
+  protected void updateThreshold(long nowMs) {
+    long newThresholdNs = Long.MAX_VALUE;
+    long newThresholdValidUntilMs = Long.MAX_VALUE;
+    for (int i = 0; i < slots.length(); i++) {
+      final SlowStatement slot = slots.get(i);
+      if (slot == null || isExpired(slot, nowMs)) {
+        newThresholdNs = -1;
+        newThresholdValidUntilMs = Long.MAX_VALUE;
+        break;
+      }
+      newThresholdNs = Math.min(newThresholdNs, slot.getExecutionTimeNs());
+      newThresholdValidUntilMs = Math.min(newThresholdValidUntilMs, slot.getTimestampMs() + windowMs);
+    }
+    thresholdValidUntilMs = newThresholdValidUntilMs;
+    thresholdNs = newThresholdNs;
+  }
+
+  private boolean isExpired(SlowStatement statement, long nowMs) {
+    return nowMs - statement.getTimestampMs() >= windowMs;
+  }
+
+  private static boolean isSameStatement(SlowStatement a, SlowStatement b) {
+    return a.getFingerprint().equals(b.getFingerprint()) && a.getDatabase().equals(b.getDatabase());
+  }
+}
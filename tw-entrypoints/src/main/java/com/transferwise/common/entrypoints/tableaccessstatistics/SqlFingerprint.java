@@ -0,0 +1,71 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+import java.util.Objects;
+
+/**
+ * 128-bit fingerprint of a statement, used as the parse results cache key instead of the statement itself.
+ *
+ * <p>When the statement is kept as well, equality also requires the statements to match exactly, so even a fingerprint collision can not
+ * give wrong results.
+ */
+public final class SqlFingerprint {
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private final long high;
+  private final long low;
+  private final String sql;
+
+  public SqlFingerprint(long high, long low, String sql) {
+    this.high = high;
+    this.low = low;
+    this.sql = sql;
+  }
+
+  public static SqlFingerprint of(String sql, boolean keepSql) {
+    final byte[] bytes = HASH_FUNCTION.hashUnencodedChars(sql).asBytes();
+    final long high = Longs.fromBytes(bytes[0], bytes[1], bytes[2], bytes[3], bytes[4], bytes[5], bytes[6], bytes[7]);
+    final long low = Longs.fromBytes(bytes[8], bytes[9], bytes[10], bytes[11], bytes[12], bytes[13], bytes[14], bytes[15]);
+    return new SqlFingerprint(high, low, keepSql ? sql : null);
+  }
+
+  public long getHigh() {
+    return high;
+  }
+
+  public long getLow() {
+    return low;
+  }
+
+  /**
+   * Returns the statement, if it is kept for exact match verification.
+   */
+  public String getSql() {
+    return sql;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof SqlFingerprint)) {
+      return false;
+    }
+    final SqlFingerprint other = (SqlFingerprint) o;
+    return high == other.high && low == other.low && Objects.equals(sql, other.sql);
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) low;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%016x%016x", high, low);
+  }
+}
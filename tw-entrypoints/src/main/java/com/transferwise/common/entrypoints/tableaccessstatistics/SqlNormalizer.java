@@ -0,0 +1,257 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+/**
+ * Normalizes statements for the parse results cache key.
+ *
+ * <p>String and numeric literals are folded into `?` and variable arity `IN` lists, like `in (?, ?, ?)`, are collapsed into `in (?)`.
+ * Statements differing only by those, will share one cache entry.
+ *
+ * <p>Normalization never touches identifiers, so it can not change which tables a statement is accessing. When the statement contains
+ * anything we are not sure about, for example backslash escapes in strings, it is returned as is. Such a statement can still contain
+ * literal values, {@link #tryNormalize(String)} tells those apart.
+ *
+ * <p>When nothing needs to be changed, the same {@link String} instance is returned and nothing is allocated.
+ */
+public class SqlNormalizer {
+
+  private static final String COLLAPSED_IN_LIST = " (?)";
+
+  /**
+   * After those words, a quoted value could be a table name, and we do not want to fold it.
+   */
+  private static final String[] TABLE_INTRODUCING_WORDS = {"from", "join", "into", "update", "table"};
+
+  public String normalize(String sql) {
+    final String normalizedSql = tryNormalize(sql);
+    return normalizedSql == null ? sql : normalizedSql;
+  }
+
+  /**
+   * Returns null instead of the statement itself, when it contains anything we are not sure about.
+   */
+  public String tryNormalize(String sql) {
+    if (sql == null) {
+      return null;
+    }
+
+    final int length = sql.length();
+    StringBuilder sb = null;
+    int copiedUpTo = 0;
+    int lastWordStart = -1;
+    int lastWordEnd = -1;
+
+    int i = 0;
+    while (i < length) {
+      final char c = sql.charAt(i);
+
+      if (c == '\'') {
+        final int end = stringLiteralEnd(sql, i);
+        if (end < 0) {
+          return null;
+        }
+        if (!isAnyWord(sql, lastWordStart, lastWordEnd, TABLE_INTRODUCING_WORDS)) {
+          sb = replace(sql, sb, copiedUpTo, i, "?");
+          copiedUpTo = end;
+        }
+        i = end;
+      } else if (c == '"' || c == '`') {
+        final int closingQuote = sql.indexOf(c, i + 1);
+        if (closingQuote < 0) {
+          return null;
+        }
+        i = closingQuote + 1;
+      } else if ((c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') || c == '#') {
+        final int newLine = sql.indexOf('\n', i);
+        i = newLine < 0 ? length : newLine + 1;
+      } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+        final int commentEnd = sql.indexOf("*/", i + 2);
+        if (commentEnd < 0) {
+          return null;
+        }
+        i = commentEnd + 2;
+      } else if (c == '$' && i + 1 < length && (sql.charAt(i + 1) == '$' || Character.isLetter(sql.charAt(i + 1)))
+          && (i == 0 || !isIdentifierPart(sql.charAt(i - 1)))) {
+        // Postgres dollar quoted strings.
+        return null;
+      } else if (Character.isLetter(c) || c == '_') {
+        final int wordEnd = identifierEnd(sql, i);
+        lastWordStart = i;
+        lastWordEnd = wordEnd;
+        i = wordEnd;
+
+        if (wordEnd - lastWordStart == 2 && sql.regionMatches(true, lastWordStart, "in", 0, 2)) {
+          final int listEnd = inListEnd(sql, wordEnd);
+          if (listEnd > 0) {
+            final int collapsedLength = COLLAPSED_IN_LIST.length();
+            if (listEnd - wordEnd != collapsedLength || !sql.regionMatches(wordEnd, COLLAPSED_IN_LIST, 0, collapsedLength)) {
+              sb = replace(sql, sb, copiedUpTo, wordEnd, COLLAPSED_IN_LIST);
+              copiedUpTo = listEnd;
+            }
+            i = listEnd;
+          }
+        }
+      } else if (Character.isDigit(c)) {
+        final int end = numberEnd(sql, i);
+        if (end < length && isIdentifierPart(sql.charAt(end))) {
+          // MySQL allows identifiers starting with digits.
+          i = identifierEnd(sql, end);
+        } else {
+          sb = replace(sql, sb, copiedUpTo, i, "?");
+          copiedUpTo = end;
+          i = end;
+        }
+      } else {
+        i++;
+      }
+    }
+
+    if (sb == null) {
+      return sql;
+    }
+    sb.append(sql, copiedUpTo, length);
+    return sb.toString();
+  }
+
+  /**
+   * Checks, if a list like `(?, 1, 'a')` starts at the given position (after optional whitespace).
+   *
+   * @return position after the closing parenthesis or -1, if there is no such list.
+   */
+  protected int inListEnd(String sql, int from) {
+    final int length = sql.length();
+    int i = skipWhitespace(sql, from);
+    if (i >= length || sql.charAt(i) != '(') {
+      return -1;
+    }
+
+    i++;
+    while (true) {
+      i = skipWhitespace(sql, i);
+      if (i >= length) {
+        return -1;
+      }
+
+      final char c = sql.charAt(i);
+      if (c == '?') {
+        i++;
+      } else if (c == '\'') {
+        i = stringLiteralEnd(sql, i);
+        if (i < 0) {
+          return -1;
+        }
+      } else {
+        if ((c == '-' || c == '+') && i + 1 < length) {
+          i++;
+        }
+        if (!Character.isDigit(sql.charAt(i))) {
+          return -1;
+        }
+        i = numberEnd(sql, i);
+        if (i < length && isIdentifierPart(sql.charAt(i))) {
+          return -1;
+        }
+      }
+
+      i = skipWhitespace(sql, i);
+      if (i >= length) {
+        return -1;
+      }
+      if (sql.charAt(i) == ')') {
+        return i + 1;
+      } else if (sql.charAt(i) != ',') {
+        return -1;
+      }
+      i++;
+    }
+  }
+
+  /**
+   * Returns the position after the closing quote or -1, if the literal is not terminated or uses backslash escapes.
+   *
+   * <p>Backslash escapes depend on the database and its configuration, so we do not even try.
+   */
+  protected int stringLiteralEnd(String sql, int start) {
+    final int length = sql.length();
+    int i = start + 1;
+    while (i < length) {
+      final char c = sql.charAt(i);
+      if (c == '\\') {
+        return -1;
+      } else if (c == '\'') {
+        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+          i += 2;
+          continue;
+        }
+        return i + 1;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  protected int numberEnd(String sql, int start) {
+    final int length = sql.length();
+    int i = digitsEnd(sql, start);
+    if (i + 1 < length && sql.charAt(i) == '.' && Character.isDigit(sql.charAt(i + 1))) {
+      i = digitsEnd(sql, i + 1);
+    }
+    if (i + 1 < length && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+      int exponentStart = i + 1;
+      if (exponentStart + 1 < length && (sql.charAt(exponentStart) == '-' || sql.charAt(exponentStart) == '+')) {
+        exponentStart++;
+      }
+      if (Character.isDigit(sql.charAt(exponentStart))) {
+        i = digitsEnd(sql, exponentStart);
+      }
+    }
+    return i;
+  }
+
+  private static StringBuilder replace(String sql, StringBuilder sb, int copiedUpTo, int replaceStart, String replacement) {
+    if (sb == null) {
+      sb = new StringBuilder(sql.length());
+    }
+    sb.append(sql, copiedUpTo, replaceStart).append(replacement);
+    return sb;
+  }
+
+  private static boolean isAnyWord(String sql, int wordStart, int wordEnd, String[] words) {
+    if (wordStart < 0) {
+      return false;
+    }
+    for (String word : words) {
+      if (wordEnd - wordStart == word.length() && sql.regionMatches(true, wordStart, word, 0, word.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int digitsEnd(String sql, int start) {
+    int i = start;
+    while (i < sql.length() && Character.isDigit(sql.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int identifierEnd(String sql, int start) {
+    int i = start;
+    while (i < sql.length() && isIdentifierPart(sql.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipWhitespace(String sql, int start) {
+    int i = start;
+    while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+  }
+}
@@ -2,6 +2,9 @@ package com.transferwise.common.entrypoints.tableaccessstatistics;
 
 import java.time.Duration;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import net.sf.jsqlparser.JSQLParserException;
@@ -11,6 +14,11 @@ import net.sf.jsqlparser.statement.Statements;
 
 public class SqlParser {
 
+  /**
+   * Only flips the interruption flags of inline parses, which have run for too long.
+   */
+  private static final ScheduledExecutorService INLINE_PARSE_TIMEOUTS = createInlineParseTimeoutsExecutor();
+
   private final ExecutorService executorService;
 
   public SqlParser(ExecutorService executorService) {
@@ -37,6 +45,36 @@ public class SqlParser {
     }
   }
 
+  /**
+   * Parses on the current thread, for callers already running on the executor, so a parse would not hold two of its threads.
+   */
+  public Statements parseInline(String sql, Duration timeout) throws JSQLParserException {
+    final CCJSqlParser parser = newParser(sql).withAllowComplexParsing(true);
+    final ScheduledFuture<?> timeoutFuture = INLINE_PARSE_TIMEOUTS.schedule(() -> {
+      parser.interrupted = true;
+    }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+    try {
+      return parser.Statements();
+    } catch (Exception ex) {
+      if (parser.interrupted) {
+        throw new JSQLParserException("Time out occurred.", ex);
+      }
+      throw new JSQLParserException(ex);
+    } finally {
+      timeoutFuture.cancel(false);
+    }
+  }
+
+  private static ScheduledExecutorService createInlineParseTimeoutsExecutor() {
+    final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+      final Thread thread = new Thread(r, "tw-entrypoints-tas-parse-timeouts");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.setRemoveOnCancelPolicy(true);
+    return executor;
+  }
+
   protected CCJSqlParser newParser(String sql) {
     return new CCJSqlParser(new StringProvider(sql));
   }
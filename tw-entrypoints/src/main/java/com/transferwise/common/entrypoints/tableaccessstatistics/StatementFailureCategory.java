@@ -0,0 +1,106 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Why did a statement fail, resolved from the SQLStates and vendor codes of MySQL, MariaDB and PostgreSQL.
+ */
+public enum StatementFailureCategory {
+  DEADLOCK("deadlock"),
+  LOCK_TIMEOUT("lockTimeout"),
+  QUERY_TIMEOUT("queryTimeout"),
+  SERIALIZATION_FAILURE("serializationFailure"),
+  CONSTRAINT("constraint"),
+  CONNECTION("connection"),
+  OTHER("other");
+
+  private static final int MAX_CAUSES_DEPTH = 10;
+
+  private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+  private static final int MYSQL_DEADLOCK = 1213;
+  private static final int MYSQL_QUERY_INTERRUPTED = 1317;
+  private static final int MARIADB_STATEMENT_TIMEOUT = 1969;
+  private static final int MYSQL_EXECUTION_TIME_EXCEEDED = 3024;
+  private static final int MYSQL_LOCK_NOWAIT = 3572;
+
+  private final String tagValue;
+
+  StatementFailureCategory(String tagValue) {
+    this.tagValue = tagValue;
+  }
+
+  public String getTagValue() {
+    return tagValue;
+  }
+
+  /**
+   * Looks at the first {@link SQLException} in the causes chain, as drivers and frameworks tend to wrap those.
+   */
+  public static StatementFailureCategory of(Throwable t) {
+    for (int i = 0; t != null && i < MAX_CAUSES_DEPTH; i++) {
+      if (t instanceof SQLException) {
+        return ofSqlException((SQLException) t);
+      }
+      t = t.getCause();
+    }
+    return OTHER;
+  }
+
+  private static StatementFailureCategory ofSqlException(SQLException e) {
+    // MySQL and MariaDB, PostgreSQL always gives 0.
+    switch (e.getErrorCode()) {
+      case MYSQL_DEADLOCK:
+        return DEADLOCK;
+      case MYSQL_LOCK_WAIT_TIMEOUT:
+      case MYSQL_LOCK_NOWAIT:
+        return LOCK_TIMEOUT;
+      case MYSQL_QUERY_INTERRUPTED:
+      case MARIADB_STATEMENT_TIMEOUT:
+      case MYSQL_EXECUTION_TIME_EXCEEDED:
+        return QUERY_TIMEOUT;
+      default:
+        break;
+    }
+
+    final String sqlState = e.getSQLState();
+    if (sqlState != null) {
+      switch (sqlState) {
+        case "40P01":
+          return DEADLOCK;
+        case "55P03":
+          return LOCK_TIMEOUT;
+        case "57014":
+          return QUERY_TIMEOUT;
+        case "40001":
+          return SERIALIZATION_FAILURE;
+        case "57P01":
+        case "57P02":
+        case "57P03":
+          return CONNECTION;
+        default:
+          break;
+      }
+      if (sqlState.startsWith("23")) {
+        return CONSTRAINT;
+      }
+      if (sqlState.startsWith("08")) {
+        return CONNECTION;
+      }
+    }
+
+    if (e instanceof SQLIntegrityConstraintViolationException) {
+      return CONSTRAINT;
+    }
+    if (e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException) {
+      return CONNECTION;
+    }
+    if (e instanceof SQLTimeoutException) {
+      return QUERY_TIMEOUT;
+    }
+    return OTHER;
+  }
+}
@@ -0,0 +1,51 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import io.micrometer.core.instrument.Counter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Table access counts of one entrypoint, flushed into the counters once, when the entrypoint ends.
+ *
+ * <p>Keyed by the counter itself, so all statements accessing the same table with the same tags end up in one increment.
+ *
+ * <p>Sub-contexts and asynchronous work of the entrypoint can outlive it. Counts added after the flush, increment the counters immediately.
+ */
+public class TableAccessCounts {
+
+  public static final String TW_CONTEXT_KEY = "TableAccessCounts";
+
+  private final Map<Counter, LongAdder> counts = new ConcurrentHashMap<>();
+  private volatile boolean flushed;
+
+  public void add(Counter counter, long count) {
+    if (flushed) {
+      counter.increment(count);
+      return;
+    }
+    LongAdder adder = counts.get(counter);
+    if (adder == null) {
+      adder = counts.computeIfAbsent(counter, k -> new LongAdder());
+    }
+    adder.add(count);
+
+    if (flushed) {
+      // The flush may have missed it. Cells are reset atomically, so it is never counted twice.
+      final long missed = adder.sumThenReset();
+      if (missed > 0) {
+        counter.increment(missed);
+      }
+    }
+  }
+
+  public void flush() {
+    flushed = true;
+    for (Map.Entry<Counter, LongAdder> entry : counts.entrySet()) {
+      final long count = entry.getValue().sumThenReset();
+      if (count > 0) {
+        entry.getKey().increment(count);
+      }
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolved meters of one parsed query, for one entrypoint, transaction and success combination.
+ *
+ * <p>Registering an access is then just a few increments, without any tags or meter cache lookups.
+ */
+class TableAccessMeters {
+
+  private final Counter[] tableAccessCounters;
+  /**
+   * Timers for the first table of each operation, indexed the same way as the counters. Other slots are `null`.
+   */
+  private final Timer[] firstTableAccessTimers;
+
+  TableAccessMeters(Counter[] tableAccessCounters, Timer[] firstTableAccessTimers) {
+    this.tableAccessCounters = tableAccessCounters;
+    this.firstTableAccessTimers = firstTableAccessTimers;
+  }
+
+  /**
+   * Counters are incremented by the sample rate, so sampled statements would still give unbiased counts.
+   *
+   * @param tableAccessCounts when given, the counts are collected there instead of incrementing the counters. Timers are always recorded.
+   */
+  void record(long executionTimeNs, int sampleRate, TableAccessCounts tableAccessCounts) {
+    for (int i = 0; i < tableAccessCounters.length; i++) {
+      final Timer timer = firstTableAccessTimers[i];
+      if (timer != null) {
+        timer.record(executionTimeNs, TimeUnit.NANOSECONDS);
+      }
+      if (tableAccessCounts == null) {
+        tableAccessCounters[i].increment(sampleRate);
+      } else {
+        tableAccessCounts.add(tableAccessCounters[i], sampleRate);
+      }
+    }
+  }
+
+  /**
+   * The parsed query is compared by identity, as its contents can be expensive to hash.
+   *
+   * <p>Instances are mutable, so the same instance can be reused for lookups without allocations, but only copies get stored.
+   */
+  static class Key {
+
+    private FrozenParsedQuery parsedQuery;
+    private String epGroup;
+    private String epName;
+    private String epOwner;
+    private boolean inTransaction;
+    private boolean succeeded;
+    private int hash;
+
+    Key set(FrozenParsedQuery parsedQuery, String epGroup, String epName, String epOwner, boolean inTransaction, boolean succeeded) {
+      this.parsedQuery = parsedQuery;
+      this.epGroup = epGroup;
+      this.epName = epName;
+      this.epOwner = epOwner;
+      this.inTransaction = inTransaction;
+      this.succeeded = succeeded;
+
+      int h = System.identityHashCode(parsedQuery);
+      h = 31 * h + hashCode(epGroup);
+      h = 31 * h + hashCode(epName);
+      h = 31 * h + hashCode(epOwner);
+      h = 31 * h + (inTransaction ? 1 : 0);
+      h = 31 * h + (succeeded ? 1 : 0);
+      this.hash = h;
+      return this;
+    }
+
+    Key copy() {
+      return new Key().set(parsedQuery, epGroup, epName, epOwner, inTransaction, succeeded);
+    }
+
+    /**
+     * Releases the references, so a reused lookup key would not keep anything alive.
+     */
+    void clear() {
+      set(null, null, null, null, false, false);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final Key other = (Key) o;
+      return hash == other.hash && parsedQuery == other.parsedQuery && inTransaction == other.inTransaction && succeeded == other.succeeded
+          && equals(epGroup, other.epGroup) && equals(epName, other.epName) && equals(epOwner, other.epOwner);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    private static int hashCode(String value) {
+      return value == null ? 0 : value.hashCode();
+    }
+
+    private static boolean equals(String a, String b) {
+      return a == b || (a != null && a.equals(b));
+    }
+  }
+}
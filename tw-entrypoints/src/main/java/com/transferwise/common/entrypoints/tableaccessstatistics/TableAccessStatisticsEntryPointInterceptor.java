@@ -0,0 +1,52 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import com.transferwise.common.context.TwContext;
+import com.transferwise.common.context.TwContextExecutionInterceptor;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects the table access counts of an entrypoint into its {@link TwContext} and flushes them when the entrypoint ends.
+ *
+ * <p>Also gives the entrypoint its {@link RepeatedQueries} tracker, when those are detected.
+ */
+@Slf4j
+public class TableAccessStatisticsEntryPointInterceptor implements TwContextExecutionInterceptor {
+
+  private final EntryPointsProperties entryPointsProperties;
+
+  public TableAccessStatisticsEntryPointInterceptor(EntryPointsProperties entryPointsProperties) {
+    this.entryPointsProperties = entryPointsProperties;
+  }
+
+  @Override
+  public <T> T intercept(TwContext context, Supplier<T> supplier) {
+    final TableAccessCounts tableAccessCounts = entryPointsProperties.getTas().isEntryPointBatchingEnabled() ? new TableAccessCounts() : null;
+    try {
+      if (tableAccessCounts != null) {
+        context.put(TableAccessCounts.TW_CONTEXT_KEY, tableAccessCounts);
+      }
+      final EntryPointsProperties.Das.RepeatedQueries repeatedQueries = entryPointsProperties.getDas().getRepeatedQueries();
+      if (repeatedQueries.isEnabled()) {
+        context.put(RepeatedQueries.TW_CONTEXT_KEY, new RepeatedQueries(repeatedQueries.getMaxShapes()));
+      }
+
+      return supplier.get();
+    } finally {
+      if (tableAccessCounts != null) {
+        try {
+          tableAccessCounts.flush();
+        } catch (Throwable t) {
+          log.error(t.getMessage(), t);
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean applies(TwContext context) {
+    return context.isNewEntryPoint() && (entryPointsProperties.getTas().isEntryPointBatchingEnabled()
+        || entryPointsProperties.getDas().getRepeatedQueries().isEnabled());
+  }
+}
@@ -5,15 +5,15 @@ import static com.transferwise.common.entrypoints.EntryPointsMetrics.TAG_OPERATI
 import static com.transferwise.common.entrypoints.EntryPointsMetrics.TAG_SUCCESS;
 import static com.transferwise.common.entrypoints.EntryPointsMetrics.TAG_TABLE;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.transferwise.common.baseutils.meters.cache.IMeterCache;
 import com.transferwise.common.baseutils.meters.cache.TagsSet;
 import com.transferwise.common.context.TwContext;
 import com.transferwise.common.context.TwContextMetricsTemplate;
 import com.transferwise.common.entrypoints.EntryPointsMetrics;
 import com.transferwise.common.entrypoints.EntryPointsProperties;
-import com.transferwise.common.entrypoints.tableaccessstatistics.ParsedQuery.SqlOperation;
+import com.transferwise.common.entrypoints.EntryPointsProperties.Tas.SqlParser.CacheKeyMode;
 import com.transferwise.common.entrypoints.tableaccessstatistics.TasQueryParsingInterceptor.InterceptResult;
 import com.transferwise.common.entrypoints.tableaccessstatistics.TasQueryParsingInterceptor.InterceptResult.Decision;
 import com.transferwise.common.spyql.event.GetConnectionEvent;
@@ -21,18 +21,28 @@ import com.transferwise.common.spyql.event.StatementExecuteEvent;
 import com.transferwise.common.spyql.event.StatementExecuteFailureEvent;
 import com.transferwise.common.spyql.listener.SpyqlConnectionListener;
 import com.transferwise.common.spyql.listener.SpyqlDataSourceListener;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Data;
+import lombok.Setter;
+import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.statement.SetStatement;
 import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.statement.Statements;
@@ -52,15 +62,30 @@ public class TableAccessStatisticsSpyqlListener implements SpyqlDataSourceListen
   public static final String GAUGE_SQL_PARSER_RESULT_CACHE_EVICT_COUNT = "EntryPoints_Tas_SqlParseResultsCache_evictCount";
   public static final String GAUGE_SQL_PARSER_RESULT_CACHE_HIT_RATIO = "EntryPoints_Tas_SqlParseResultsCache_hitRatio";
   public static final String GAUGE_SQL_PARSER_RESULT_CACHE_SIZE = "EntryPoints_Tas_SqlParseResultsCache_size";
+  public static final String GAUGE_SQL_PARSER_RESULT_CACHE_DISTINCT_RAW_SQLS = "EntryPoints_Tas_SqlParseResultsCache_distinctRawSqls";
+  public static final String GAUGE_SQL_PARSER_RESULT_CACHE_DISTINCT_SHAPES = "EntryPoints_Tas_SqlParseResultsCache_distinctShapes";
 
   public static final String COUNTER_PARSES = "EntryPoints_Tas_Parses";
+  public static final String COUNTER_FAST_PARSES = "EntryPoints_Tas_FastParses";
   public static final String COUNTER_FAILED_PARSES = "EntryPoints_Tas_FailedParses";
   public static final String COUNTER_SLOW_PARSES = "EntryPoints_Tas_SlowParses";
   public static final String COUNTER_UNCOUNTED_QUERIES = "EntryPoints_Tas_UncountedQueries";
   public static final String TIMER_FIRST_TABLE_ACCESS = "EntryPoints_Tas_FirstTableAccess";
   public static final String COUNTER_TABLE_ACCESS = "EntryPoints_Tas_TableAccess";
+  public static final String COUNTER_STATEMENT_FAILURES = "EntryPoints_Tas_StatementFailures";
+  /**
+   * Named after the database access statistics, which it logically belongs to, but needs the statement shapes resolved here.
+   */
+  public static final String COUNTER_REPEATED_QUERIES = "EntryPoints_Das_RepeatedQueries";
 
-  private static final long MIB = 1_000_000;
+  private static final String METERS_CONTAINER_TABLE_ACCESS = "EntryPoints_Tas_TableAccessMeters";
+  private static final ThreadLocal<TableAccessMeters.Key> TABLE_ACCESS_METERS_LOOKUP_KEY = ThreadLocal.withInitial(TableAccessMeters.Key::new);
+
+  private static final long MIB = 1024 * 1024;
+  private static final int DISTINCT_COUNT_ESTIMATOR_BITS = 1 << 17;
+  private static final int CUSTOM_PARSED_QUERIES_CACHE_SIZE = 10_000;
+  private static final int REPEATED_QUERY_LOG_MAX_SQL_LENGTH = 1000;
+  private static final int SLOW_STATEMENT_MAX_SQL_LENGTH = 1000;
 
   private static final Tag TAG_IN_TRANSACTION_TRUE = Tag.of(TAG_IN_TRANSACTION, "true");
   private static final Tag TAG_IN_TRANSACTION_FALSE = Tag.of(TAG_IN_TRANSACTION, "false");
@@ -70,16 +95,42 @@ public class TableAccessStatisticsSpyqlListener implements SpyqlDataSourceListen
 
   private final String databaseName;
   private final Tag dbTag;
+  private final TagsSet databaseTagsSet;
 
   private final IMeterCache meterCache;
 
-  final LoadingCache<String, ParsedQuery> sqlParseResultsCache;
+  /**
+   * Keyed by {@link String} or {@link SqlFingerprint}, depending on the cache key mode.
+   */
+  final Cache<Object, FrozenParsedQuery> sqlParseResultsCache;
+  /**
+   * Frozen forms of the parsed queries coming from the registry and the interceptor, which are expected to not change afterwards.
+   */
+  private final Cache<ParsedQuery, FrozenParsedQuery> customParsedQueries;
+  /**
+   * Frozen parsed queries deduplicated by their contents, for interceptors giving a new instance for every statement.
+   */
+  private final Cache<FrozenParsedQuery, FrozenParsedQuery> internedParsedQueries;
 
   private final TasParsedQueryRegistry tasParsedQueryRegistry;
   private final SqlParser sqlParser;
+  private final FastSqlParser fastSqlParser;
+  private final SqlNormalizer sqlNormalizer;
+  private final RetainedSizeEstimator retainedSizeEstimator;
+  private final DistinctCountEstimator distinctRawSqls;
+  private final DistinctCountEstimator distinctSqlShapes;
   private final EntryPointsProperties entryPointsProperties;
   private final TasQueryParsingListener tasQueryParsingListener;
   private final TasQueryParsingInterceptor tasQueryParsingInterceptor;
+  private final ExecutorService executorService;
+  private final Map<Object, PendingParse> pendingParses = new ConcurrentHashMap<>();
+  private final AtomicLong nextRepeatedQueryLogTimeMs = new AtomicLong();
+
+  /**
+   * When set, the slowest statements are collected there.
+   */
+  @Setter
+  private SlowestStatements slowestStatements;
 
   public TableAccessStatisticsSpyqlListener(IMeterCache meterCache, ExecutorService executorService,
       TasParsedQueryRegistry tasParsedQueryRegistry, String databaseName,
@@ -87,9 +138,16 @@ public class TableAccessStatisticsSpyqlListener implements SpyqlDataSourceListen
       TasQueryParsingInterceptor tasQueryParsingInterceptor) {
     this.databaseName = databaseName;
     this.dbTag = Tag.of(EntryPointsMetrics.TAG_DATABASE, databaseName);
+    this.databaseTagsSet = TagsSet.of(EntryPointsMetrics.TAG_DATABASE, databaseName);
     this.meterCache = meterCache;
     this.tasParsedQueryRegistry = tasParsedQueryRegistry;
+    this.executorService = executorService;
     this.sqlParser = new SqlParser(executorService);
+    this.fastSqlParser = new FastSqlParser();
+    this.sqlNormalizer = new SqlNormalizer();
+    this.retainedSizeEstimator = new RetainedSizeEstimator();
+    this.distinctRawSqls = new DistinctCountEstimator(DISTINCT_COUNT_ESTIMATOR_BITS);
+    this.distinctSqlShapes = new DistinctCountEstimator(DISTINCT_COUNT_ESTIMATOR_BITS);
     this.entryPointsProperties = entryPointsProperties;
     this.tasQueryParsingInterceptor = tasQueryParsingInterceptor;
     this.tasQueryParsingListener = tasQueryParsingListener;
@@ -98,8 +156,10 @@ public class TableAccessStatisticsSpyqlListener implements SpyqlDataSourceListen
 
     sqlParseResultsCache = Caffeine.newBuilder().maximumWeight(entryPointsProperties.getTas().getSqlParser().getCacheSizeMib() * MIB).recordStats()
         .executor(executorService)
-        .weigher((String k, ParsedQuery v) -> k.length() * 2)
-        .build(sql -> parseSql(sql, TwContext.current()));
+        .weigher((Object k, FrozenParsedQuery v) -> retainedSizeEstimator.estimate(k, v))
+        .build();
+    customParsedQueries = Caffeine.newBuilder().weakKeys().maximumSize(CUSTOM_PARSED_QUERIES_CACHE_SIZE).executor(executorService).build();
+    internedParsedQueries = Caffeine.newBuilder().maximumSize(CUSTOM_PARSED_QUERIES_CACHE_SIZE).executor(executorService).build();
 
     new CaffeineCacheMetrics<>(sqlParseResultsCache, "ep-tas-parse-results-" + databaseName, Collections.emptyList()).bindTo(meterRegistry);
 
@@ -113,6 +173,14 @@ public class TableAccessStatisticsSpyqlListener implements SpyqlDataSourceListen
         .register(meterRegistry);
     Gauge.builder(GAUGE_SQL_PARSER_RESULT_CACHE_EVICT_COUNT, () -> sqlParseResultsCache.stats().evictionCount()).tag("database", databaseName)
         .register(meterRegistry);
+    Gauge.builder(GAUGE_SQL_PARSER_RESULT_CACHE_DISTINCT_RAW_SQLS, distinctRawSqls::estimate).tag("database", databaseName)
+        .register(meterRegistry);
+    Gauge.builder(GAUGE_SQL_PARSER_RESULT_CACHE_DISTINCT_SHAPES, distinctSqlShapes::estimate).tag("database", databaseName)
+        .register(meterRegistry);
+  }
+
+  public String getDatabaseName() {
+    return databaseName;
   }
 
   @Override
@@ -120,52 +188,33 @@ public class TableAccessStatisticsSpyqlListener implements SpyqlDataSourceListen
     return new ConnectionListener();
   }
 
-  protected ParsedQuery parseSql(String sql, TwContext context) {
+  protected FrozenParsedQuery parseSql(String sql, TwContext context) {
+    return parseSql(sql, context, false);
+  }
+
+  /**
+   * With `onExecutor`, the statement is parsed on the current thread, which is already one of the executor's.
+   */
+  protected FrozenParsedQuery parseSql(String sql, TwContext context, boolean onExecutor) {
     final InterceptResult interceptResult = tasQueryParsingInterceptor.intercept(sql);
     if (interceptResult.getDecision() == Decision.CUSTOM_PARSED_QUERY) {
-      return interceptResult.getParsedQuery();
+      return FrozenParsedQuery.of(interceptResult.getParsedQuery());
     } else if (interceptResult.getDecision() == Decision.SKIP) {
-      return new ParsedQuery();
+      return FrozenParsedQuery.EMPTY;
     }
 
     final ParsedQuery result = new ParsedQuery();
     final long startTimeMs = System.currentTimeMillis();
     try {
-      final Statements stmts = sqlParser.parse(sql, entryPointsProperties.getTas().getSqlParser().getTimeout());
-
-      for (Statement stmt : stmts) {
-        if (stmt instanceof UnsupportedStatement) {
-          throw new IllegalStateException("Unsupported statement.");
-        }
-      }
-
-      for (Statement stmt : stmts) {
-
-        // Intern() makes later equal checks much faster.
-        final String opName = getOperationName(stmt).intern();
-        final CustomTablesNamesFinder tablesNamesFinder = new CustomTablesNamesFinder();
-        List<String> tableNames = null;
-        try {
-          tablesNamesFinder.getTables(stmt);
-          tableNames = tablesNamesFinder.getTables();
-        } catch (UnsupportedOperationException e) {
-          // Some type of statements do not support finding table names.
-          // For example a statement 'SHOW FULL TABLES IN ...'.
-          log.debug("Unsupported query '{}'.", sql, e);
-        }
-
-        final SqlOperation sqlOp = result
-            .getOperations()
-            .computeIfAbsent(opName, k -> new ParsedQuery.SqlOperation());
-
-        if (tableNames != null) {
-          for (String tableName : tableNames) {
-            tableName = trimTableName(tableName);
-            // Intern() makes later equal checks much faster.
-            tableName = tableName.intern();
-            sqlOp.getTableNames().add(tableName);
-          }
-        }
+      if (parseSqlOnFastPath(sql, result)) {
+        meterCache.counter(COUNTER_FAST_PARSES, TagsSet.of(
+            EntryPointsMetrics.TAG_DATABASE, databaseName,
+            TwContextMetricsTemplate.TAG_EP_GROUP, context.getGroup(),
+            TwContextMetricsTemplate.TAG_EP_NAME, context.getName(),
+            TwContextMetricsTemplate.TAG_EP_OWNER, context.getOwner()
+        )).increment();
+      } else {
+        parseSqlWithJSqlParser(sql, result, onExecutor);
       }
 
       meterCache.counter(COUNTER_PARSES, TagsSet.of(
@@ -196,7 +245,102 @@ public class TableAccessStatisticsSpyqlListener implements SpyqlDataSourceListen
       }
     }
 
-    return result;
+    return FrozenParsedQuery.of(result);
+  }
+
+  /**
+   * Tries the hand-written parser for the most common statement shapes, avoiding the JSqlParser cost and the executor hop.
+   *
+   * @return false, when the statement has to be parsed by JSqlParser instead.
+   */
+  protected boolean parseSqlOnFastPath(String sql, ParsedQuery result) {
+    if (!entryPointsProperties.getTas().getSqlParser().isFastPathEnabled()) {
+      return false;
+    }
+
+    final FastSqlParser.Result fastResult = fastSqlParser.parse(sql);
+    if (fastResult == null) {
+      return false;
+    }
+
+    addTables(result, fastResult.getOperationName(), Collections.singletonList(fastResult.getTableName()));
+    return true;
+  }
+
+  protected void parseSqlWithJSqlParser(String sql, ParsedQuery result) throws JSQLParserException {
+    parseSqlWithJSqlParser(sql, result, false);
+  }
+
+  protected void parseSqlWithJSqlParser(String sql, ParsedQuery result, boolean onExecutor) throws JSQLParserException {
+    final Duration timeout = entryPointsProperties.getTas().getSqlParser().getTimeout();
+    final Statements stmts = onExecutor ? sqlParser.parseInline(sql, timeout) : sqlParser.parse(sql, timeout);
+
+    for (Statement stmt : stmts) {
+      if (stmt instanceof UnsupportedStatement) {
+        throw new IllegalStateException("Unsupported statement.");
+      }
+    }
+
+    for (Statement stmt : stmts) {
+
+      final String opName = getOperationName(stmt);
+      final CustomTablesNamesFinder tablesNamesFinder = new CustomTablesNamesFinder();
+      List<String> tableNames = null;
+      try {
+        tablesNamesFinder.getTables(stmt);
+        tableNames = tablesNamesFinder.getTables();
+      } catch (UnsupportedOperationException e) {
+        // Some type of statements do not support finding table names.
+        // For example a statement 'SHOW FULL TABLES IN ...'.
+        log.debug("Unsupported query '{}'.", sql, e);
+      }
+
+      addTables(result, opName, tableNames);
+    }
+  }
+
+  protected void addTables(ParsedQuery result, String opName, List<String> tableNames) {
+    final ParsedQuery.SqlOperation sqlOp = result
+        .getOperations()
+        .computeIfAbsent(opName, k -> new ParsedQuery.SqlOperation());
+
+    if (tableNames != null) {
+      for (String tableName : tableNames) {
+        sqlOp.getTableNames().add(trimTableName(tableName));
+      }
+    }
+  }
+
+  /**
+   * Folds literals and collapses `IN` lists, so all variants of the same statement would share one parse result.
+   *
+   * <p>Depending on the cache key mode, the result is either the statement itself or its {@link SqlFingerprint}.
+   */
+  protected Object toCacheKey(String sql) {
+    return toCacheKey(sql, true);
+  }
+
+  /**
+   * With `countDistinct`, the statement is counted into the distinct raw statements and shapes estimates of the parse results cache.
+   */
+  protected Object toCacheKey(String sql, boolean countDistinct) {
+    final EntryPointsProperties.Tas.SqlParser sqlParserProperties = entryPointsProperties.getTas().getSqlParser();
+    String normalizedSql = sql;
+    if (sqlParserProperties.isNormalizeCacheKeys()) {
+      normalizedSql = sqlNormalizer.normalize(sql);
+      if (countDistinct) {
+        distinctRawSqls.add(sql);
+        distinctSqlShapes.add(normalizedSql);
+      }
+    }
+
+    final CacheKeyMode cacheKeyMode = sqlParserProperties.getCacheKeyMode();
+    if (cacheKeyMode == CacheKeyMode.FINGERPRINT) {
+      return SqlFingerprint.of(normalizedSql, false);
+    } else if (cacheKeyMode == CacheKeyMode.VERIFIED_FINGERPRINT) {
+      return SqlFingerprint.of(normalizedSql, true);
+    }
+    return normalizedSql;
   }
 
   protected String trimTableName(String tableName) {
@@ -232,71 +376,411 @@ public class TableAccessStatisticsSpyqlListener implements SpyqlDataSourceListen
     return stmt.getClass().getSimpleName().toLowerCase();
   }
 
+  /**
+   * Parses the statement on the executor and attributes the accesses, which happened in the meanwhile, once it is done.
+   *
+   * <p>Only the first access of a statement schedules the parse, the following ones just get buffered.
+   */
+  protected void parseSqlAsync(String sql, Object cacheKey, TwContext context, PendingTableAccess access) {
+    final PendingParse newPendingParse = new PendingParse();
+    final PendingParse pendingParse = pendingParses.computeIfAbsent(cacheKey, k -> newPendingParse);
+
+    if (pendingParse.add(access, entryPointsProperties.getTas().getSqlParser().getAsyncParsingMaxPendingAccesses())) {
+      if (pendingParse == newPendingParse) {
+        try {
+          executorService.submit(() -> completeAsyncParse(sql, cacheKey, context, pendingParse));
+        } catch (RejectedExecutionException e) {
+          pendingParses.remove(cacheKey, pendingParse);
+          for (PendingTableAccess pendingAccess : pendingParse.drain()) {
+            registerUncountedQuery(pendingAccess.getEpGroup(), pendingAccess.getEpName(), pendingAccess.getEpOwner(),
+                pendingAccess.getSampleRate());
+            registerStatementFailure(null, pendingAccess.getEpGroup(), pendingAccess.getEpName(), pendingAccess.getEpOwner(),
+                pendingAccess.getFailureCategory());
+          }
+        }
+      }
+      return;
+    }
+
+    final FrozenParsedQuery parsedQuery = sqlParseResultsCache.getIfPresent(cacheKey);
+    if (parsedQuery == null) {
+      // The buffer is full.
+      registerUncountedQuery(access.getEpGroup(), access.getEpName(), access.getEpOwner(), access.getSampleRate());
+    } else {
+      // The parse completed in the meanwhile.
+      registerTableAccess(parsedQuery, access.getEpGroup(), access.getEpName(), access.getEpOwner(), access.isInTransaction(),
+          access.isSucceeded(), access.getExecutionTimeNs(), access.getSampleRate());
+    }
+    registerStatementFailure(parsedQuery, access.getEpGroup(), access.getEpName(), access.getEpOwner(), access.getFailureCategory());
+  }
+
+  protected void completeAsyncParse(String sql, Object cacheKey, TwContext context, PendingParse pendingParse) {
+    FrozenParsedQuery parsedQuery = null;
+    try {
+      parsedQuery = sqlParseResultsCache.asMap().computeIfAbsent(cacheKey, k -> parseSql(sql, context, true));
+    } finally {
+      pendingParses.remove(cacheKey, pendingParse);
+      for (PendingTableAccess access : pendingParse.drain()) {
+        registerTableAccess(parsedQuery, access.getEpGroup(), access.getEpName(), access.getEpOwner(), access.isInTransaction(),
+            access.isSucceeded(), access.getExecutionTimeNs(), access.getSampleRate());
+        registerStatementFailure(parsedQuery, access.getEpGroup(), access.getEpName(), access.getEpOwner(), access.getFailureCategory());
+      }
+    }
+  }
+
+  protected void registerTableAccess(FrozenParsedQuery parsedQuery, String epGroup, String epName, String epOwner, boolean isInTransaction,
+      boolean succeeded, long executionTimeNs, int sampleRate) {
+    if (sampleRate == 0) {
+      // Not sampled, it was resolved only for the failures or the slowest statements.
+      return;
+    }
+    if (parsedQuery == null || parsedQuery.isEmpty()) {
+      registerUncountedQuery(epGroup, epName, epOwner, sampleRate);
+      return;
+    }
+
+    // Set only inside entrypoints, and only on the entrypoint's threads, so asynchronously parsed accesses are counted immediately.
+    final TableAccessCounts tableAccessCounts = TwContext.current().get(TableAccessCounts.TW_CONTEXT_KEY);
+    getTableAccessMeters(parsedQuery, epGroup, epName, epOwner, isInTransaction, succeeded).record(executionTimeNs, sampleRate,
+        tableAccessCounts);
+  }
+
+  /**
+   * Resolves the meters once per parsed query, entrypoint, transaction and success combination.
+   *
+   * <p>The bundles are kept in a meters container, so they would be dropped together with the meters, when the meter cache is cleared.
+   */
+  protected TableAccessMeters getTableAccessMeters(FrozenParsedQuery parsedQuery, String epGroup, String epName, String epOwner,
+      boolean isInTransaction, boolean succeeded) {
+    final Cache<TableAccessMeters.Key, TableAccessMeters> tableAccessMetersCache = meterCache.metersContainer(METERS_CONTAINER_TABLE_ACCESS,
+        databaseTagsSet, (name, tags) -> Caffeine.newBuilder().maximumSize(entryPointsProperties.getTas().getTableAccessMetersCacheSize())
+            .build());
+
+    final TableAccessMeters.Key lookupKey = TABLE_ACCESS_METERS_LOOKUP_KEY.get()
+        .set(parsedQuery, epGroup, epName, epOwner, isInTransaction, succeeded);
+    try {
+      final TableAccessMeters tableAccessMeters = tableAccessMetersCache.getIfPresent(lookupKey);
+      if (tableAccessMeters != null) {
+        return tableAccessMeters;
+      }
+      return tableAccessMetersCache.get(lookupKey.copy(),
+          key -> createTableAccessMeters(parsedQuery, epGroup, epName, epOwner, isInTransaction, succeeded));
+    } finally {
+      lookupKey.clear();
+    }
+  }
+
+  protected TableAccessMeters createTableAccessMeters(FrozenParsedQuery parsedQuery, String epGroup, String epName, String epOwner,
+      boolean isInTransaction, boolean succeeded) {
+    final Tag inTransactionTag = isInTransaction ? TAG_IN_TRANSACTION_TRUE : TAG_IN_TRANSACTION_FALSE;
+    final Tag successTag = succeeded ? TAG_SUCCESS_TRUE : TAG_SUCCESS_FALSE;
+
+    final List<Counter> counters = new ArrayList<>();
+    final List<Timer> timers = new ArrayList<>();
+    for (int i = 0; i < parsedQuery.getOperationsCount(); i++) {
+      final String opName = parsedQuery.getOperationName(i);
+      for (int j = 0; j < parsedQuery.getTablesCount(i); j++) {
+        final TagsSet tagsSet = TagsSet.of(
+            dbTag.getKey(), dbTag.getValue(),
+            TwContextMetricsTemplate.TAG_EP_GROUP, epGroup,
+            TwContextMetricsTemplate.TAG_EP_NAME, epName,
+            TwContextMetricsTemplate.TAG_EP_OWNER, epOwner,
+            inTransactionTag.getKey(), inTransactionTag.getValue(),
+            TAG_OPERATION, opName,
+            successTag.getKey(), successTag.getValue(),
+            TAG_TABLE, parsedQuery.getTableName(i, j));
+
+        timers.add(j == 0 ? meterCache.timer(TIMER_FIRST_TABLE_ACCESS, tagsSet) : null);
+        counters.add(meterCache.counter(COUNTER_TABLE_ACCESS, tagsSet));
+      }
+    }
+    return new TableAccessMeters(counters.toArray(new Counter[0]), timers.toArray(new Timer[0]));
+  }
+
+  /**
+   * Parsed queries from the registry are expected to be the same instances every time, so those are frozen just once.
+   */
+  protected FrozenParsedQuery freeze(ParsedQuery parsedQuery) {
+    return parsedQuery == null ? null : customParsedQueries.get(parsedQuery, this::freezeByContent);
+  }
+
+  /**
+   * Interceptors can give a new instance for every statement, so equal parsed queries are deduplicated by their contents. That way those
+   * still hit the meter bundles, which compare the parsed queries by identity.
+   */
+  protected FrozenParsedQuery freezeByContent(ParsedQuery parsedQuery) {
+    if (parsedQuery == null) {
+      return null;
+    }
+    final FrozenParsedQuery frozenParsedQuery = FrozenParsedQuery.of(parsedQuery);
+    return internedParsedQueries.get(frozenParsedQuery, k -> k);
+  }
+
+  /**
+   * Reports a statement shape once per entrypoint, when it is executed more times than the threshold.
+   *
+   * <p>Without a parsed query, only a statement waiting for its asynchronous parse is counted, and it is reported without the operation
+   * and the table.
+   *
+   * @param cacheKey parse results cache key of the statement, if it was already computed.
+   */
+  protected void registerRepeatedQuery(String sql, Object cacheKey, FrozenParsedQuery parsedQuery, TwContext context, int sampleRate) {
+    final RepeatedQueries repeatedQueries = context.get(RepeatedQueries.TW_CONTEXT_KEY);
+    if (sampleRate == 0 || repeatedQueries == null || (parsedQuery == null ? cacheKey == null : parsedQuery.isEmpty())) {
+      return;
+    }
+
+    final int count = repeatedQueries.add(toShapeKey(sql, cacheKey), sampleRate);
+    final EntryPointsProperties.Das.RepeatedQueries properties = entryPointsProperties.getDas().getRepeatedQueries();
+    final int threshold = properties.getThreshold();
+    if (count <= threshold || count - sampleRate > threshold) {
+      return;
+    }
+
+    meterCache.counter(COUNTER_REPEATED_QUERIES, TagsSet.of(
+        EntryPointsMetrics.TAG_DATABASE, databaseName,
+        TwContextMetricsTemplate.TAG_EP_GROUP, context.getGroup(),
+        TwContextMetricsTemplate.TAG_EP_NAME, context.getName(),
+        TwContextMetricsTemplate.TAG_EP_OWNER, context.getOwner(),
+        TAG_OPERATION, parsedQuery == null ? "" : parsedQuery.getOperationName(0),
+        TAG_TABLE, parsedQuery == null || parsedQuery.getTablesCount(0) == 0 ? "" : parsedQuery.getTableName(0, 0)
+    )).increment();
+
+    final long nowMs = System.currentTimeMillis();
+    final long nextLogTimeMs = nextRepeatedQueryLogTimeMs.get();
+    if (nowMs >= nextLogTimeMs && nextRepeatedQueryLogTimeMs.compareAndSet(nextLogTimeMs, nowMs + properties.getLogInterval().toMillis())) {
+      log.warn("Statement was executed more than {} times in entrypoint '{}:{}' of database '{}', which can be an N+1 problem: {}", threshold,
+          context.getGroup(), context.getName(), databaseName, StringUtils.abbreviate(sql, REPEATED_QUERY_LOG_MAX_SQL_LENGTH));
+    }
+  }
+
+  /**
+   * Statements differing only by their literals have the same shape, whichever way their tables were resolved.
+   */
+  protected Object toShapeKey(String sql, Object cacheKey) {
+    if (!entryPointsProperties.getTas().getSqlParser().isNormalizeCacheKeys()) {
+      // Cache keys are raw statements then.
+      return sqlNormalizer.normalize(sql);
+    }
+    return cacheKey == null ? toCacheKey(sql, false) : cacheKey;
+  }
+
+  /**
+   * Normalizes and fingerprints the statement only when it is slow enough to get into the slowest statements.
+   */
+  protected void registerSlowStatement(String sql, FrozenParsedQuery parsedQuery, TwContext context, boolean succeeded, long executionTimeNs,
+      long affectedRows) {
+    if (slowestStatements == null || !slowestStatements.isCandidate(executionTimeNs)) {
+      return;
+    }
+
+    final List<String> tables = new ArrayList<>();
+    if (parsedQuery != null) {
+      for (int i = 0; i < parsedQuery.getOperationsCount(); i++) {
+        for (int j = 0; j < parsedQuery.getTablesCount(i); j++) {
+          final String tableName = parsedQuery.getTableName(i, j);
+          if (!tables.contains(tableName)) {
+            tables.add(tableName);
+          }
+        }
+      }
+    }
+
+    // Statements the normalizer kept as is, may contain literal values, so only their fingerprint is exposed.
+    final String normalizedSql = sqlNormalizer.tryNormalize(sql);
+    slowestStatements.add(new SlowStatement().setFingerprint(SqlFingerprint.of(normalizedSql == null ? sql : normalizedSql, false).toString())
+        .setSql(normalizedSql == null ? null : StringUtils.abbreviate(normalizedSql, SLOW_STATEMENT_MAX_SQL_LENGTH)).setDatabase(databaseName)
+        .setEntryPointGroup(context.getGroup()).setEntryPointName(context.getName()).setEntryPointOwner(context.getOwner())
+        .setTables(tables).setExecutionTimeNs(executionTimeNs).setAffectedRows(affectedRows).setSucceeded(succeeded)
+        .setTimestampMs(System.currentTimeMillis()));
+  }
+
+  /**
+   * Counts a failed statement for each of its tables, or once without a table, when it could not be parsed.
+   *
+   * <p>Failures are rare, so the meters are just looked up, instead of being resolved into bundles. For the same reason, those are not
+   * sampled, and every failure is counted exactly once.
+   */
+  protected void registerStatementFailure(FrozenParsedQuery parsedQuery, String epGroup, String epName, String epOwner,
+      StatementFailureCategory failureCategory) {
+    if (failureCategory == null) {
+      return;
+    }
+    if (parsedQuery == null || parsedQuery.isEmpty()) {
+      registerStatementFailure(epGroup, epName, epOwner, "", "", failureCategory);
+      return;
+    }
+    for (int i = 0; i < parsedQuery.getOperationsCount(); i++) {
+      if (parsedQuery.getTablesCount(i) == 0) {
+        registerStatementFailure(epGroup, epName, epOwner, parsedQuery.getOperationName(i), "", failureCategory);
+      }
+      for (int j = 0; j < parsedQuery.getTablesCount(i); j++) {
+        registerStatementFailure(epGroup, epName, epOwner, parsedQuery.getOperationName(i), parsedQuery.getTableName(i, j), failureCategory);
+      }
+    }
+  }
+
+  protected void registerStatementFailure(String epGroup, String epName, String epOwner, String operation, String table,
+      StatementFailureCategory failureCategory) {
+    meterCache.counter(COUNTER_STATEMENT_FAILURES, TagsSet.of(
+        EntryPointsMetrics.TAG_DATABASE, databaseName,
+        TwContextMetricsTemplate.TAG_EP_GROUP, epGroup,
+        TwContextMetricsTemplate.TAG_EP_NAME, epName,
+        TwContextMetricsTemplate.TAG_EP_OWNER, epOwner,
+        TAG_OPERATION, operation,
+        TAG_TABLE, table,
+        EntryPointsMetrics.TAG_FAILURE_CATEGORY, failureCategory.getTagValue()
+    )).increment();
+  }
+
+  protected void registerUncountedQuery(String epGroup, String epName, String epOwner, int sampleRate) {
+    if (sampleRate == 0) {
+      return;
+    }
+    meterCache.counter(COUNTER_UNCOUNTED_QUERIES, TagsSet.of(
+        EntryPointsMetrics.TAG_DATABASE, databaseName,
+        TwContextMetricsTemplate.TAG_EP_GROUP, epGroup,
+        TwContextMetricsTemplate.TAG_EP_NAME, epName,
+        TwContextMetricsTemplate.TAG_EP_OWNER, epOwner
+    )).increment(sampleRate);
+  }
+
+  /**
+   * Decides randomly, if the statement gets recorded.
+   *
+   * @return the rate to scale the counters by, or 0 when the statement is not recorded.
+   */
+  protected int sample(String epName) {
+    final int sampleRate = getSampleRate(epName);
+    if (sampleRate <= 1) {
+      return 1;
+    }
+    return ThreadLocalRandom.current().nextInt(sampleRate) == 0 ? sampleRate : 0;
+  }
+
+  protected int getSampleRate(String epName) {
+    final EntryPointsProperties.Tas.Sampling sampling = entryPointsProperties.getTas().getSampling();
+    if (!sampling.getEntryPoints().isEmpty()) {
+      final Integer sampleRate = sampling.getEntryPoints().get(epName);
+      if (sampleRate != null) {
+        return sampleRate;
+      }
+    }
+    if (!sampling.getDatabases().isEmpty()) {
+      final Integer sampleRate = sampling.getDatabases().get(databaseName);
+      if (sampleRate != null) {
+        return sampleRate;
+      }
+    }
+    return sampling.getRate();
+  }
+
+  /**
+   * Table accesses of one statement, waiting for its parse to complete.
+   */
+  static class PendingParse {
+
+    private List<PendingTableAccess> accesses = new ArrayList<>();
+
+    /**
+     * Returns false, when the parse has already completed or the buffer is full.
+     */
+    synchronized boolean add(PendingTableAccess access, int maxAccesses) {
+      if (accesses == null || accesses.size() >= maxAccesses) {
+        return false;
+      }
+      accesses.add(access);
+      return true;
+    }
+
+    synchronized List<PendingTableAccess> drain() {
+      final List<PendingTableAccess> result = accesses;
+      accesses = null;
+      return result == null ? Collections.emptyList() : result;
+    }
+  }
+
+  @Data
+  @Accessors(chain = true)
+  static class PendingTableAccess {
+
+    private String epGroup;
+    private String epName;
+    private String epOwner;
+    private boolean inTransaction;
+    /**
+     * `null`, when the statement succeeded.
+     */
+    private StatementFailureCategory failureCategory;
+    private long executionTimeNs;
+    private int sampleRate;
+
+    boolean isSucceeded() {
+      return failureCategory == null;
+    }
+  }
+
   class ConnectionListener implements SpyqlConnectionListener {
 
     @Override
     public void onStatementExecute(StatementExecuteEvent event) {
-      registerSql(event.getSql(), event.isInTransaction(), true, event.getExecutionTimeNs());
+      registerSql(event.getSql(), event.isInTransaction(), null, event.getExecutionTimeNs(), event.getAffectedRowsCount());
     }
 
     @Override
     public void onStatementExecuteFailure(StatementExecuteFailureEvent event) {
-      registerSql(event.getSql(), event.getTransaction() != null, false, event.getExecutionTimeNs());
+      registerSql(event.getSql(), event.getTransaction() != null, StatementFailureCategory.of(event.getThrowable()), event.getExecutionTimeNs(),
+          0);
     }
 
-    protected void registerSql(String sql, boolean isInTransaction, boolean succeeded, long executionTimeNs) {
+    /**
+     * Registers a statement execution.
+     *
+     * @param failureCategory `null`, when the statement succeeded.
+     */
+    protected void registerSql(String sql, boolean isInTransaction, StatementFailureCategory failureCategory, long executionTimeNs,
+        long affectedRows) {
+      final boolean succeeded = failureCategory == null;
       final TwContext context = TwContext.current();
-      final Tag inTransactionTag = isInTransaction ? TAG_IN_TRANSACTION_TRUE : TAG_IN_TRANSACTION_FALSE;
-      final Tag successTag = succeeded ? TAG_SUCCESS_TRUE : TAG_SUCCESS_FALSE;
+      final int sampleRate = sample(context.getName());
+      // Failures and slow statements are rare, and the slowness check is just a few reads, so those are not sampled.
+      final boolean slowStatementCandidate = slowestStatements != null && slowestStatements.isCandidate(executionTimeNs);
+      if (sampleRate == 0 && succeeded && !slowStatementCandidate) {
+        return;
+      }
 
-      ParsedQuery parsedQuery = tasParsedQueryRegistry.get(sql);
+      FrozenParsedQuery parsedQuery = freeze(tasParsedQueryRegistry.get(sql));
+      Object cacheKey = null;
 
       if (parsedQuery == null) {
         if (TasUtils.isQueryParsingEnabled(TwContext.current())) {
-          parsedQuery = sqlParseResultsCache.get(sql, sqlForCache -> parseSql(sqlForCache, context));
+          cacheKey = toCacheKey(sql);
+          if (entryPointsProperties.getTas().getSqlParser().isAsyncParsingEnabled()) {
+            parsedQuery = sqlParseResultsCache.getIfPresent(cacheKey);
+            if (parsedQuery == null) {
+              parseSqlAsync(sql, cacheKey, context, new PendingTableAccess().setEpGroup(context.getGroup()).setEpName(context.getName())
+                  .setEpOwner(context.getOwner()).setInTransaction(isInTransaction).setFailureCategory(failureCategory)
+                  .setExecutionTimeNs(executionTimeNs).setSampleRate(sampleRate));
+              registerRepeatedQuery(sql, cacheKey, null, context, sampleRate);
+              registerSlowStatement(sql, null, context, succeeded, executionTimeNs, affectedRows);
+              return;
+            }
+          } else {
+            parsedQuery = sqlParseResultsCache.get(cacheKey, k -> parseSql(sql, context));
+          }
         } else {
           InterceptResult interceptResult = tasQueryParsingInterceptor.intercept(sql);
           if (interceptResult.getDecision() == Decision.CUSTOM_PARSED_QUERY) {
-            parsedQuery = interceptResult.getParsedQuery();
+            parsedQuery = freezeByContent(interceptResult.getParsedQuery());
           }
         }
       }
 
-      if (parsedQuery == null || parsedQuery.getOperations().isEmpty()) {
-        meterCache.counter(COUNTER_UNCOUNTED_QUERIES, TagsSet.of(
-            EntryPointsMetrics.TAG_DATABASE, databaseName,
-            TwContextMetricsTemplate.TAG_EP_GROUP, context.getGroup(),
-            TwContextMetricsTemplate.TAG_EP_NAME, context.getName(),
-            TwContextMetricsTemplate.TAG_EP_OWNER, context.getOwner()
-        )).increment();
-
-        return;
-      }
-
-      for (Entry<String, SqlOperation> entry : parsedQuery.getOperations().entrySet()) {
-        final String opName = entry.getKey();
-        final SqlOperation op = entry.getValue();
-        if (op.getTableNames() != null) {
-          String firstTableName = null;
-          for (String tableName : op.getTableNames()) {
-            final TagsSet tagsSet = TagsSet.of(
-                dbTag.getKey(), dbTag.getValue(),
-                TwContextMetricsTemplate.TAG_EP_GROUP, context.getGroup(),
-                TwContextMetricsTemplate.TAG_EP_NAME, context.getName(),
-                TwContextMetricsTemplate.TAG_EP_OWNER, context.getOwner(),
-                inTransactionTag.getKey(), inTransactionTag.getValue(),
-                TAG_OPERATION, opName,
-                successTag.getKey(), successTag.getValue(),
-                TAG_TABLE, tableName);
-
-            if (firstTableName == null) {
-              firstTableName = tableName;
-              meterCache.timer(TIMER_FIRST_TABLE_ACCESS, tagsSet).record(executionTimeNs, TimeUnit.NANOSECONDS);
-            }
-            meterCache.counter(COUNTER_TABLE_ACCESS, tagsSet).increment();
-          }
-        }
-      }
+      registerRepeatedQuery(sql, cacheKey, parsedQuery, context, sampleRate);
+      registerSlowStatement(sql, parsedQuery, context, succeeded, executionTimeNs, affectedRows);
+      registerTableAccess(parsedQuery, context.getGroup(), context.getName(), context.getOwner(), isInTransaction, succeeded, executionTimeNs,
+          sampleRate);
+      registerStatementFailure(parsedQuery, context.getGroup(), context.getName(), context.getOwner(), failureCategory);
     }
   }
 }
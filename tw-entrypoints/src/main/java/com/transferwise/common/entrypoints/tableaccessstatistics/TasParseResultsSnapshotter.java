@@ -0,0 +1,126 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import com.transferwise.common.entrypoints.EntryPointsProperties.Tas.SqlParser.CacheKeyMode;
+import com.transferwise.common.gracefulshutdown.GracefulShutdownStrategy;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.statement.Statement;
+
+/**
+ * Keeps parse results over restarts, so a freshly deployed service would not need to parse all its statements again.
+ *
+ * <p>Registered listeners get their caches preloaded immediately and written out, when the application is terminating.
+ */
+@Slf4j
+public class TasParseResultsSnapshotter implements GracefulShutdownStrategy {
+
+  private final EntryPointsProperties entryPointsProperties;
+  private final TasQueryParsingInterceptor tasQueryParsingInterceptor;
+  private final ParseResultsSnapshotFile snapshotFile = new ParseResultsSnapshotFile();
+  private final SqlNormalizer sqlNormalizer = new SqlNormalizer();
+  private final List<TableAccessStatisticsSpyqlListener> listeners = new CopyOnWriteArrayList<>();
+
+  public TasParseResultsSnapshotter(EntryPointsProperties entryPointsProperties, TasQueryParsingInterceptor tasQueryParsingInterceptor) {
+    this.entryPointsProperties = entryPointsProperties;
+    this.tasQueryParsingInterceptor = tasQueryParsingInterceptor;
+  }
+
+  public void register(TableAccessStatisticsSpyqlListener listener) {
+    if (!areCacheKeysSafeToWrite()) {
+      log.warn("Parse results snapshot is not used for database '{}'. With `tw-entrypoints.tas.sql-parser.normalize-cache-keys=false`, "
+          + "the cache keys are raw statements with literal values, which should not end up on a local disk. Use the `FINGERPRINT` "
+          + "cache key mode or turn the normalization on.", listener.getDatabaseName());
+      return;
+    }
+    listeners.add(listener);
+    load(listener);
+  }
+
+  @Override
+  public boolean canShutdown() {
+    return true;
+  }
+
+  @Override
+  public void applicationTerminating() {
+    for (TableAccessStatisticsSpyqlListener listener : listeners) {
+      write(listener);
+    }
+  }
+
+  protected void load(TableAccessStatisticsSpyqlListener listener) {
+    final Path file = getFile(listener.getDatabaseName());
+    final Map<Object, FrozenParsedQuery> parseResults = snapshotFile.read(file, getVersion());
+    if (!parseResults.isEmpty()) {
+      listener.sqlParseResultsCache.putAll(parseResults);
+      log.info("Preloaded {} parse results for database '{}' from '{}'.", parseResults.size(), listener.getDatabaseName(), file);
+    }
+  }
+
+  protected void write(TableAccessStatisticsSpyqlListener listener) {
+    final Path file = getFile(listener.getDatabaseName());
+    final int maxEntries = entryPointsProperties.getTas().getParseResultsSnapshot().getMaxEntries();
+    final Map<Object, FrozenParsedQuery> parseResults = new LinkedHashMap<>();
+
+    for (Map.Entry<Object, FrozenParsedQuery> entry : listener.sqlParseResultsCache.asMap().entrySet()) {
+      if (parseResults.size() >= maxEntries) {
+        break;
+      }
+      // Failed and skipped parses are not worth keeping, the failures should be reported again after restart.
+      if (!entry.getValue().isEmpty() && isKeySafeToWrite(entry.getKey())) {
+        parseResults.put(entry.getKey(), entry.getValue());
+      }
+    }
+
+    try {
+      snapshotFile.write(file, getVersion(), parseResults);
+      log.info("Wrote {} parse results for database '{}' to '{}'.", parseResults.size(), listener.getDatabaseName(), file);
+    } catch (Exception e) {
+      log.error("Writing parse results snapshot to '{}' failed.", file, e);
+    }
+  }
+
+  /**
+   * Plain fingerprints are always safe, statements kept in the keys are safe only when their literals are folded.
+   *
+   * <p>Even then, statements the normalizer was not sure about are kept as is, so each key is checked by {@link #isKeySafeToWrite(Object)}.
+   */
+  protected boolean areCacheKeysSafeToWrite() {
+    final EntryPointsProperties.Tas.SqlParser sqlParserProperties = entryPointsProperties.getTas().getSqlParser();
+    return sqlParserProperties.isNormalizeCacheKeys() || sqlParserProperties.getCacheKeyMode() == CacheKeyMode.FINGERPRINT;
+  }
+
+  /**
+   * Normalizing a normalized statement again gives the same result, so only the statements kept as is are rejected here.
+   */
+  protected boolean isKeySafeToWrite(Object key) {
+    final String sql = key instanceof SqlFingerprint ? ((SqlFingerprint) key).getSql() : (String) key;
+    return sql == null || sqlNormalizer.tryNormalize(sql) != null;
+  }
+
+  protected Path getFile(String databaseName) {
+    final String directory = entryPointsProperties.getTas().getParseResultsSnapshot().getDirectory();
+    return Paths.get(directory, "tas-parse-results-" + databaseName.replaceAll("[^a-zA-Z0-9_.-]", "_") + ".bin");
+  }
+
+  /**
+   * Anything which can change the parse results or the cache keys, has to be part of the version.
+   */
+  protected String getVersion() {
+    final EntryPointsProperties.Tas.SqlParser sqlParserProperties = entryPointsProperties.getTas().getSqlParser();
+    return String.join("|",
+        "tw-entrypoints=" + TableAccessStatisticsSpyqlListener.class.getPackage().getImplementationVersion(),
+        "jsqlparser=" + Statement.class.getPackage().getImplementationVersion(),
+        "interceptor=" + tasQueryParsingInterceptor.getClass().getName(),
+        "interceptorVersion=" + entryPointsProperties.getTas().getParseResultsSnapshot().getInterceptorVersion(),
+        "fastPath=" + sqlParserProperties.isFastPathEnabled(),
+        "normalizeCacheKeys=" + sqlParserProperties.isNormalizeCacheKeys(),
+        "cacheKeyMode=" + sqlParserProperties.getCacheKeyMode());
+  }
+}
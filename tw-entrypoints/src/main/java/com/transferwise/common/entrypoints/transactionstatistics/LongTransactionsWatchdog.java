@@ -0,0 +1,143 @@
+package com.transferwise.common.entrypoints.transactionstatistics;
+
+import com.transferwise.common.baseutils.concurrency.IExecutorServicesProvider;
+import com.transferwise.common.baseutils.concurrency.ScheduledTaskExecutor.TaskHandle;
+import com.transferwise.common.baseutils.meters.cache.IMeterCache;
+import com.transferwise.common.baseutils.meters.cache.TagsSet;
+import com.transferwise.common.context.TwContextMetricsTemplate;
+import com.transferwise.common.entrypoints.EntryPointsMetrics;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import com.transferwise.common.entrypoints.transactionstatistics.OpenTransactions.OpenTransaction;
+import com.transferwise.common.gracefulshutdown.GracefulShutdownStrategy;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.TimeGauge;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically scans the open transactions, so stuck ones would be visible before they end.
+ *
+ * <p>Gauges are registered per database and entrypoint, once a transaction is seen open for them, and are set to 0 when there are none
+ * anymore.
+ */
+@Slf4j
+public class LongTransactionsWatchdog implements GracefulShutdownStrategy {
+
+  /**
+   * How long has the oldest open transaction been open.
+   */
+  public static final String GAUGE_OLDEST_OPEN_TRANSACTION_AGE = "database_transaction_oldest_open_age";
+  /**
+   * How many transactions have been open for longer than the threshold.
+   */
+  public static final String GAUGE_LONG_RUNNING_TRANSACTIONS = "database_transaction_long_running";
+
+  private final IMeterCache meterCache;
+  private final OpenTransactions openTransactions;
+  private final long thresholdNs;
+  private final long logIntervalNs;
+  private final Map<TagsSet, OpenTransactionsGauges> gauges = new ConcurrentHashMap<>();
+  private final TaskHandle taskHandle;
+
+  private long nextLogTimeNs;
+
+  public LongTransactionsWatchdog(IExecutorServicesProvider executorServicesProvider, IMeterCache meterCache,
+      EntryPointsProperties entryPointsProperties, OpenTransactions openTransactions) {
+    this.meterCache = meterCache;
+    this.openTransactions = openTransactions;
+
+    var properties = entryPointsProperties.getTs().getLongTransactions();
+    this.thresholdNs = properties.getThreshold().toNanos();
+    this.logIntervalNs = properties.getLogInterval().toNanos();
+    this.nextLogTimeNs = System.nanoTime();
+
+    taskHandle = executorServicesProvider.getGlobalScheduledTaskExecutor()
+        .scheduleAtFixedInterval(this::check, properties.getCheckInterval(), properties.getCheckInterval());
+
+    log.info("Starting to watch for transactions open longer than {}.", properties.getThreshold());
+  }
+
+  protected void check() {
+    final long nowNs = System.nanoTime();
+    final Map<TagsSet, OpenTransactionsStats> statsMap = new HashMap<>();
+    OpenTransaction oldestLongTransaction = null;
+    int longTransactionsCount = 0;
+
+    for (OpenTransaction transaction : openTransactions.getOpenTransactions()) {
+      final long ageNs = nowNs - transaction.getBeginTimeNs();
+      final TagsSet tagsSet = TagsSet.of(
+          EntryPointsMetrics.TAG_DATABASE, transaction.getDatabaseName(),
+          TwContextMetricsTemplate.TAG_EP_GROUP, nullToUnknown(transaction.getEntryPointGroup()),
+          TwContextMetricsTemplate.TAG_EP_NAME, nullToUnknown(transaction.getEntryPointName()),
+          TwContextMetricsTemplate.TAG_EP_OWNER, nullToUnknown(transaction.getEntryPointOwner()));
+
+      final OpenTransactionsStats stats = statsMap.computeIfAbsent(tagsSet, k -> new OpenTransactionsStats());
+      stats.oldestAgeNs = Math.max(stats.oldestAgeNs, ageNs);
+      if (ageNs > thresholdNs) {
+        stats.longRunningCount++;
+        longTransactionsCount++;
+        if (oldestLongTransaction == null || transaction.getBeginTimeNs() < oldestLongTransaction.getBeginTimeNs()) {
+          oldestLongTransaction = transaction;
+        }
+      }
+    }
+
+    for (Map.Entry<TagsSet, OpenTransactionsStats> entry : statsMap.entrySet()) {
+      gauges.computeIfAbsent(entry.getKey(), this::registerGauges);
+    }
+    for (Map.Entry<TagsSet, OpenTransactionsGauges> entry : gauges.entrySet()) {
+      final OpenTransactionsStats stats = statsMap.get(entry.getKey());
+      entry.getValue().oldestAgeNs = stats == null ? 0 : stats.oldestAgeNs;
+      entry.getValue().longRunningCount = stats == null ? 0 : stats.longRunningCount;
+    }
+
+    if (oldestLongTransaction != null && nowNs - nextLogTimeNs >= 0) {
+      nextLogTimeNs = nowNs + logIntervalNs;
+      log.warn("{} transaction(s) have been open for longer than {}. The oldest one, '{}' of database '{}', has been open for {}, "
+              + "in entrypoint '{}:{}', begun by thread '{}'.", longTransactionsCount, Duration.ofNanos(thresholdNs),
+          oldestLongTransaction.getTransactionName(), oldestLongTransaction.getDatabaseName(),
+          Duration.ofNanos(nowNs - oldestLongTransaction.getBeginTimeNs()), oldestLongTransaction.getEntryPointGroup(),
+          oldestLongTransaction.getEntryPointName(), oldestLongTransaction.getThreadName());
+    }
+  }
+
+  protected OpenTransactionsGauges registerGauges(TagsSet tagsSet) {
+    final OpenTransactionsGauges result = new OpenTransactionsGauges();
+    TimeGauge.builder(GAUGE_OLDEST_OPEN_TRANSACTION_AGE, result, TimeUnit.NANOSECONDS, g -> g.oldestAgeNs)
+        .tags(tagsSet.getMicrometerTags()).register(meterCache.getMeterRegistry());
+    Gauge.builder(GAUGE_LONG_RUNNING_TRANSACTIONS, result, g -> g.longRunningCount)
+        .tags(tagsSet.getMicrometerTags()).register(meterCache.getMeterRegistry());
+    return result;
+  }
+
+  protected String nullToUnknown(String value) {
+    return value == null ? "Unknown" : value;
+  }
+
+  private static class OpenTransactionsStats {
+
+    private long oldestAgeNs;
+    private int longRunningCount;
+  }
+
+  private static class OpenTransactionsGauges {
+
+    private volatile long oldestAgeNs;
+    private volatile int longRunningCount;
+  }
+
+  @Override
+  public boolean canShutdown() {
+    return true;
+  }
+
+  @Override
+  public void applicationTerminating() {
+    log.info("Stopping watching for long transactions.");
+    taskHandle.stop();
+  }
+}
@@ -0,0 +1,50 @@
+package com.transferwise.common.entrypoints.transactionstatistics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.transferwise.common.spyql.SpyqlTransactionDefinition;
+import java.util.Collection;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Registry of the transactions currently open, over all databases.
+ *
+ * <p>Transactions are keyed weakly by their connection listeners, so a connection dropped without a commit or rollback event, can not leak
+ * its entry.
+ */
+public class OpenTransactions {
+
+  private final Cache<Object, OpenTransaction> transactions = Caffeine.newBuilder().weakKeys().build();
+
+  public void begin(Object connectionListener, String databaseName, SpyqlTransactionDefinition transactionDefinition) {
+    transactions.put(connectionListener, new OpenTransaction().setDatabaseName(databaseName)
+        .setEntryPointGroup(transactionDefinition.getEntryPointGroup()).setEntryPointName(transactionDefinition.getEntryPointName())
+        .setEntryPointOwner(transactionDefinition.getEntryPointOwner()).setTransactionName(transactionDefinition.getName())
+        .setThreadName(Thread.currentThread().getName()).setBeginTimeNs(System.nanoTime()));
+  }
+
+  public void end(Object connectionListener) {
+    transactions.invalidate(connectionListener);
+  }
+
+  public Collection<OpenTransaction> getOpenTransactions() {
+    return transactions.asMap().values();
+  }
+
+  @Data
+  @Accessors(chain = true)
+  public static class OpenTransaction {
+
+    private String databaseName;
+    private String entryPointGroup;
+    private String entryPointName;
+    private String entryPointOwner;
+    private String transactionName;
+    /**
+     * Thread which began the transaction, most likely the one holding it open.
+     */
+    private String threadName;
+    private long beginTimeNs;
+  }
+}
@@ -12,6 +12,8 @@ import com.transferwise.common.context.TwContextMetricsTemplate;
 import com.transferwise.common.entrypoints.EntryPointsMetrics;
 import com.transferwise.common.spyql.SpyqlTransactionDefinition;
 import com.transferwise.common.spyql.event.GetConnectionEvent;
+import com.transferwise.common.spyql.event.StatementExecuteEvent;
+import com.transferwise.common.spyql.event.StatementExecuteFailureEvent;
 import com.transferwise.common.spyql.event.SpyqlTransaction;
 import com.transferwise.common.spyql.event.TransactionBeginEvent;
 import com.transferwise.common.spyql.event.TransactionCommitEvent;
@@ -20,11 +22,13 @@ import com.transferwise.common.spyql.event.TransactionRollbackEvent;
 import com.transferwise.common.spyql.event.TransactionRollbackFailureEvent;
 import com.transferwise.common.spyql.listener.SpyqlConnectionListener;
 import com.transferwise.common.spyql.listener.SpyqlDataSourceListener;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Timer;
 import java.sql.Connection;
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -42,6 +46,28 @@ public class TransactionsStatisticsSpyqlListener implements SpyqlDataSourceListe
    */
   public static final String METRIC_TRANSACTION_FINALIZATION = "database_transaction_finalization";
 
+  /**
+   * How many statements were executed in the transaction.
+   */
+  public static final String METRIC_TRANSACTION_STATEMENTS = "database_transaction_statements";
+
+  /**
+   * How long did the statements of the transaction take in the database.
+   */
+  public static final String METRIC_TRANSACTION_ACTIVE = "database_transaction_active";
+
+  /**
+   * How long was the transaction open without executing any statements, before the commit/rollback.
+   *
+   * <p>Time spent on fetching result sets is counted as idle as well.
+   */
+  public static final String METRIC_TRANSACTION_IDLE = "database_transaction_idle";
+
+  /**
+   * How long did it take from the transaction's begin until its first statement was sent to the database.
+   */
+  public static final String METRIC_TRANSACTION_FIRST_STATEMENT = "database_transaction_first_statement";
+
   public static final String METRIC_COLLECTION_TRANSACTION_END = "database_transaction_end";
 
   private static final Tag TAG_READ_ONLY_TRUE = Tag.of(TAG_READ_ONLY, "true");
@@ -64,6 +90,12 @@ public class TransactionsStatisticsSpyqlListener implements SpyqlDataSourceListe
   private final IMeterCache meterCache;
   private final Tag dbTag;
 
+  /**
+   * When set, open transactions are tracked there, for the long transactions watchdog.
+   */
+  @Setter
+  private OpenTransactions openTransactions;
+
   public TransactionsStatisticsSpyqlListener(IMeterCache meterCache, String databaseName) {
     this.dbTag = Tag.of(EntryPointsMetrics.TAG_DATABASE, databaseName);
     this.meterCache = meterCache;
@@ -74,10 +106,24 @@ public class TransactionsStatisticsSpyqlListener implements SpyqlDataSourceListe
     return new ConnectionListener();
   }
 
+  /**
+   * A connection is used by one thread at a time, so the timeline of its current transaction is kept in plain fields.
+   */
   class ConnectionListener implements SpyqlConnectionListener {
 
+    private boolean inTransaction;
+    private long transactionBeginTimeNs;
+    private long firstStatementTimeNs;
+    private long statementsCount;
+    private long activeTimeNs;
+
     @Override
     public void onTransactionBegin(TransactionBeginEvent event) {
+      inTransaction = true;
+      transactionBeginTimeNs = System.nanoTime();
+      statementsCount = 0;
+      activeTimeNs = 0;
+
       SpyqlTransaction transaction = event.getTransaction();
       SpyqlTransactionDefinition transactionDefinition = transaction.getDefinition();
 
@@ -93,6 +139,31 @@ public class TransactionsStatisticsSpyqlListener implements SpyqlDataSourceListe
           TAG_TRANSACTION_NAME, nullToUnknown(transactionDefinition.getName()),
           readOnlyTag.getKey(), readOnlyTag.getValue());
       meterCache.counter(METRIC_TRANSACTION_START, tagsSet).increment();
+
+      if (openTransactions != null) {
+        openTransactions.begin(this, dbTag.getValue(), transactionDefinition);
+      }
+    }
+
+    @Override
+    public void onStatementExecute(StatementExecuteEvent event) {
+      registerStatement(event.getExecutionTimeNs());
+    }
+
+    @Override
+    public void onStatementExecuteFailure(StatementExecuteFailureEvent event) {
+      registerStatement(event.getExecutionTimeNs());
+    }
+
+    protected void registerStatement(long executionTimeNs) {
+      if (!inTransaction) {
+        return;
+      }
+      if (statementsCount++ == 0) {
+        // The event comes after the statement has completed.
+        firstStatementTimeNs = System.nanoTime() - executionTimeNs;
+      }
+      activeTimeNs += executionTimeNs;
     }
 
     @Override
@@ -116,6 +187,10 @@ public class TransactionsStatisticsSpyqlListener implements SpyqlDataSourceListe
     }
 
     protected void registerTransactionEnd(SpyqlTransaction transaction, boolean success, boolean commit, long finalizationTimeNs) {
+      if (openTransactions != null) {
+        openTransactions.end(this);
+      }
+
       SpyqlTransactionDefinition transactionDefinition = transaction.getDefinition();
 
       final Tag isolationLevelTag = isolationLevelTag(transactionDefinition.getIsolationLevel());
@@ -138,11 +213,26 @@ public class TransactionsStatisticsSpyqlListener implements SpyqlDataSourceListe
         TransactionMetrics result = new TransactionMetrics();
         result.completion = meterCache.timer(METRIC_TRANSACTION_COMPLETION, tags);
         result.finalization = meterCache.timer(METRIC_TRANSACTION_FINALIZATION, tags);
+        result.statements = meterCache.summary(METRIC_TRANSACTION_STATEMENTS, tags);
+        result.active = meterCache.timer(METRIC_TRANSACTION_ACTIVE, tags);
+        result.idle = meterCache.timer(METRIC_TRANSACTION_IDLE, tags);
+        result.firstStatement = meterCache.timer(METRIC_TRANSACTION_FIRST_STATEMENT, tags);
         return result;
       });
 
       metrics.completion.record(Duration.between(transaction.getStartTime(), transaction.getEndTime()));
       metrics.finalization.record(finalizationTimeNs, TimeUnit.NANOSECONDS);
+
+      if (inTransaction) {
+        inTransaction = false;
+        final long openTimeNs = System.nanoTime() - finalizationTimeNs - transactionBeginTimeNs;
+        metrics.statements.record(statementsCount);
+        metrics.active.record(activeTimeNs, TimeUnit.NANOSECONDS);
+        metrics.idle.record(Math.max(0, openTimeNs - activeTimeNs), TimeUnit.NANOSECONDS);
+        if (statementsCount > 0) {
+          metrics.firstStatement.record(firstStatementTimeNs - transactionBeginTimeNs, TimeUnit.NANOSECONDS);
+        }
+      }
     }
 
     protected String nullToUnknown(String value) {
@@ -161,6 +251,10 @@ public class TransactionsStatisticsSpyqlListener implements SpyqlDataSourceListe
 
     private Timer completion;
     private Timer finalization;
+    private DistributionSummary statements;
+    private Timer active;
+    private Timer idle;
+    private Timer firstStatement;
   }
 
 }
@@ -1,8 +1,12 @@
 package com.transferwise.common.entrypoints.transactionstatistics;
 
 import static com.transferwise.common.entrypoints.EntryPointsMetrics.MS_TO_NS;
+import static com.transferwise.common.entrypoints.transactionstatistics.TransactionsStatisticsSpyqlListener.METRIC_TRANSACTION_ACTIVE;
 import static com.transferwise.common.entrypoints.transactionstatistics.TransactionsStatisticsSpyqlListener.METRIC_TRANSACTION_COMPLETION;
 import static com.transferwise.common.entrypoints.transactionstatistics.TransactionsStatisticsSpyqlListener.METRIC_TRANSACTION_FINALIZATION;
+import static com.transferwise.common.entrypoints.transactionstatistics.TransactionsStatisticsSpyqlListener.METRIC_TRANSACTION_FIRST_STATEMENT;
+import static com.transferwise.common.entrypoints.transactionstatistics.TransactionsStatisticsSpyqlListener.METRIC_TRANSACTION_IDLE;
+import static com.transferwise.common.entrypoints.transactionstatistics.TransactionsStatisticsSpyqlListener.METRIC_TRANSACTION_STATEMENTS;
 
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.config.MeterFilter;
@@ -13,7 +17,15 @@ public class TsMeterFilter implements MeterFilter {
   @Override
   public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
     String name = id.getName();
-    if (!METRIC_TRANSACTION_COMPLETION.equals(name) && !(METRIC_TRANSACTION_FINALIZATION.equals(name))) {
+    if (METRIC_TRANSACTION_STATEMENTS.equals(name)) {
+      return DistributionStatisticConfig.builder()
+          .percentilesHistogram(false)
+          .serviceLevelObjectives(1, 2, 5, 10, 25, 50, 100, 250, 1000)
+          .build()
+          .merge(config);
+    }
+    if (!METRIC_TRANSACTION_COMPLETION.equals(name) && !METRIC_TRANSACTION_FINALIZATION.equals(name) && !METRIC_TRANSACTION_ACTIVE.equals(name)
+        && !METRIC_TRANSACTION_IDLE.equals(name) && !METRIC_TRANSACTION_FIRST_STATEMENT.equals(name)) {
       return config;
     }
     return DistributionStatisticConfig.builder()
@@ -0,0 +1,123 @@
+package com.transferwise.common.entrypoints;
+
+import com.transferwise.common.entrypoints.EntryPointsProperties.CardinalityLimits.Limit;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CardinalityLimitingMeterFilterTest {
+
+  private EntryPointsProperties entryPointsProperties;
+  private CardinalityLimitingMeterFilter filter;
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setup() {
+    var limit = new Limit();
+    limit.setMetricName("EntryPoints_Tas_*");
+    limit.setMaxSeries(2);
+    limit.setFoldedTag("table");
+    entryPointsProperties = new EntryPointsProperties();
+    entryPointsProperties.getCardinalityLimits().getLimits().add(limit);
+
+    filter = new CardinalityLimitingMeterFilter(entryPointsProperties);
+    meterRegistry = new SimpleMeterRegistry();
+    meterRegistry.config().meterFilter(filter);
+    filter.bindTo(meterRegistry);
+  }
+
+  @Test
+  void seriesOverTheLimitAreFolded() {
+    meterRegistry.counter("EntryPoints_Tas_TableAccess", "db", "a", "table", "t1").increment();
+    meterRegistry.counter("EntryPoints_Tas_TableAccess", "db", "a", "table", "t2").increment();
+    meterRegistry.counter("EntryPoints_Tas_TableAccess", "db", "a", "table", "t3").increment();
+    meterRegistry.counter("EntryPoints_Tas_TableAccess", "db", "a", "table", "t4").increment();
+    // Already known series are not folded.
+    meterRegistry.counter("EntryPoints_Tas_TableAccess", "db", "a", "table", "t1").increment();
+
+    Assertions.assertEquals(2, meterRegistry.get("EntryPoints_Tas_TableAccess").tag("table", "t1").counter().count());
+    Assertions.assertEquals(1, meterRegistry.get("EntryPoints_Tas_TableAccess").tag("table", "t2").counter().count());
+    Assertions.assertEquals(2, meterRegistry.get("EntryPoints_Tas_TableAccess").tag("table", "other").counter().count());
+    Assertions.assertNull(meterRegistry.find("EntryPoints_Tas_TableAccess").tag("table", "t3").counter());
+
+    Assertions.assertEquals(2, foldedSeries(meterRegistry).count());
+  }
+
+  @Test
+  void foldedSeriesAreCountedOnce() {
+    meterRegistry.counter("EntryPoints_Tas_TableAccess", "table", "t1");
+    meterRegistry.counter("EntryPoints_Tas_TableAccess", "table", "t2");
+    var id = new Meter.Id("EntryPoints_Tas_TableAccess", Tags.of("table", "t3"), null, null, Meter.Type.COUNTER);
+
+    Assertions.assertEquals("other", filter.map(id).getTag("table"));
+    Assertions.assertEquals("other", filter.map(id).getTag("table"));
+    Assertions.assertEquals(1, foldedSeries(meterRegistry).count());
+  }
+
+  @Test
+  void seriesFoldedBeforeBindingAreCounted() {
+    var unboundFilter = new CardinalityLimitingMeterFilter(entryPointsProperties);
+    for (int i = 0; i < 3; i++) {
+      unboundFilter.map(new Meter.Id("EntryPoints_Tas_TableAccess", Tags.of("table", "t" + i), null, null, Meter.Type.COUNTER));
+    }
+
+    var registry = new SimpleMeterRegistry();
+    unboundFilter.bindTo(registry);
+    Assertions.assertEquals(1, foldedSeries(registry).count());
+  }
+
+  @Test
+  void gaugesAreNotFolded() {
+    for (int i = 0; i < 4; i++) {
+      meterRegistry.gauge("EntryPoints_Tas_Gauge", Tags.of("table", "t" + i), new AtomicInteger(i));
+    }
+
+    Assertions.assertEquals(4, meterRegistry.find("EntryPoints_Tas_Gauge").gauges().size());
+    Assertions.assertEquals(3, meterRegistry.get("EntryPoints_Tas_Gauge").tag("table", "t3").gauge().value());
+    Assertions.assertNull(meterRegistry.find(CardinalityLimitingMeterFilter.COUNTER_FOLDED_SERIES).functionCounter());
+  }
+
+  @Test
+  void metricsAreLimitedSeparately() {
+    meterRegistry.counter("EntryPoints_Tas_TableAccess", "table", "t1");
+    meterRegistry.counter("EntryPoints_Tas_TableAccess", "table", "t2");
+    meterRegistry.counter("EntryPoints_Tas_StatementFailures", "table", "t1");
+    meterRegistry.counter("EntryPoints_Tas_StatementFailures", "table", "t2");
+
+    Assertions.assertNotNull(meterRegistry.find("EntryPoints_Tas_StatementFailures").tag("table", "t2").counter());
+  }
+
+  @Test
+  void removedSeriesFreeUpTheLimit() {
+    var counter = meterRegistry.counter("EntryPoints_Tas_TableAccess", "table", "t1");
+    meterRegistry.counter("EntryPoints_Tas_TableAccess", "table", "t2");
+    meterRegistry.remove(counter);
+    meterRegistry.counter("EntryPoints_Tas_TableAccess", "table", "t3");
+
+    Assertions.assertNotNull(meterRegistry.find("EntryPoints_Tas_TableAccess").tag("table", "t3").counter());
+  }
+
+  @Test
+  void otherMetricsAreNotLimited() {
+    for (int i = 0; i < 10; i++) {
+      meterRegistry.counter("EntryPoints_Es_timeTakenCount", "table", "t" + i);
+      meterRegistry.counter("my_application_metric", "table", "t" + i);
+      meterRegistry.counter("EntryPoints_Tas_TableAccess", "db", "d" + i);
+    }
+
+    Assertions.assertEquals(10, meterRegistry.find("EntryPoints_Es_timeTakenCount").counters().size());
+    Assertions.assertEquals(10, meterRegistry.find("my_application_metric").counters().size());
+    // Without the folded tag, there is nothing to fold.
+    Assertions.assertEquals(10, meterRegistry.find("EntryPoints_Tas_TableAccess").counters().size());
+  }
+
+  private FunctionCounter foldedSeries(SimpleMeterRegistry registry) {
+    return registry.get(CardinalityLimitingMeterFilter.COUNTER_FOLDED_SERIES)
+        .tag(CardinalityLimitingMeterFilter.TAG_METRIC, "EntryPoints_Tas_TableAccess").functionCounter();
+  }
+}
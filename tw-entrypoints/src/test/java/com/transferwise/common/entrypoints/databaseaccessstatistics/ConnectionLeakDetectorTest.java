@@ -0,0 +1,100 @@
+package com.transferwise.common.entrypoints.databaseaccessstatistics;
+
+import com.transferwise.common.baseutils.meters.cache.MeterCache;
+import com.transferwise.common.context.TwContext;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import com.transferwise.common.spyql.event.ConnectionCloseEvent;
+import com.transferwise.common.spyql.event.GetConnectionEvent;
+import com.transferwise.common.spyql.listener.SpyqlConnectionListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConnectionLeakDetectorTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private EntryPointsProperties entryPointsProperties;
+  private DatabaseAccessStatisticsSpyqlListener listener;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    entryPointsProperties = new EntryPointsProperties();
+    var connectionLeakDetection = entryPointsProperties.getDas().getConnectionLeakDetection();
+    connectionLeakDetection.setFramesCount(1);
+    connectionLeakDetection.setExcludedPackages(List.of("java.", "jdk.", "org.junit."));
+    listener = new DatabaseAccessStatisticsSpyqlListener("mydb");
+  }
+
+  @Test
+  void leakedConnectionsAreReportedByAcquisitionSite() {
+    entryPointsProperties.getDas().getConnectionLeakDetection().setEnabled(true);
+    var interceptor = new DatabaseAccessStatisticsEntryPointInterceptor(new MeterCache(meterRegistry), entryPointsProperties);
+
+    TwContext.current().createSubContext().asEntryPoint("Test", "myEntryPoint").execute(() ->
+        interceptor.intercept(TwContext.current(), () -> {
+          SpyqlConnectionListener closedConnection = getConnection();
+          getLeakedConnection();
+          closedConnection.onConnectionClose(new ConnectionCloseEvent());
+          return null;
+        }));
+
+    var counters = meterRegistry.find(ConnectionLeakDetector.COUNTER_LEAKED_CONNECTIONS).counters();
+    Assertions.assertEquals(1, counters.size());
+    Counter counter = counters.iterator().next();
+    Assertions.assertEquals(1, counter.count());
+    Assertions.assertTrue(counter.getId().getTag(ConnectionLeakDetector.TAG_ACQUISITION_SITE)
+        .startsWith(getClass().getName() + ".getLeakedConnection:"));
+    Assertions.assertEquals("mydb", counter.getId().getTag("db"));
+  }
+
+  @Test
+  void nothingIsTrackedWhenDisabled() {
+    var interceptor = new DatabaseAccessStatisticsEntryPointInterceptor(new MeterCache(meterRegistry), entryPointsProperties);
+
+    TwContext.current().createSubContext().asEntryPoint("Test", "myEntryPoint").execute(() ->
+        interceptor.intercept(TwContext.current(), () -> {
+          Assertions.assertNull(TwContext.current().get(OpenConnections.TW_CONTEXT_KEY));
+          getLeakedConnection();
+          return null;
+        }));
+
+    Assertions.assertTrue(meterRegistry.find(ConnectionLeakDetector.COUNTER_LEAKED_CONNECTIONS).counters().isEmpty());
+  }
+
+  @Test
+  void exportedAcquisitionSitesAreBounded() {
+    entryPointsProperties.getDas().getConnectionLeakDetection().setEnabled(true);
+    entryPointsProperties.getDas().getConnectionLeakDetection().setMaxExportedAcquisitionSites(1);
+    var interceptor = new DatabaseAccessStatisticsEntryPointInterceptor(new MeterCache(meterRegistry), entryPointsProperties);
+
+    for (int i = 0; i < 2; i++) {
+      TwContext.current().createSubContext().asEntryPoint("Test", "myEntryPoint").execute(() ->
+          interceptor.intercept(TwContext.current(), () -> {
+            getLeakedConnection();
+            getOtherLeakedConnection();
+            return null;
+          }));
+    }
+
+    var counters = meterRegistry.find(ConnectionLeakDetector.COUNTER_LEAKED_CONNECTIONS).counters();
+    Assertions.assertEquals(2, counters.size());
+    Assertions.assertEquals(2, meterRegistry.get(ConnectionLeakDetector.COUNTER_LEAKED_CONNECTIONS)
+        .tag(ConnectionLeakDetector.TAG_ACQUISITION_SITE, ConnectionLeakDetector.ACQUISITION_SITE_OTHER).counter().count());
+  }
+
+  private SpyqlConnectionListener getConnection() {
+    return listener.onGetConnection(new GetConnectionEvent());
+  }
+
+  private SpyqlConnectionListener getLeakedConnection() {
+    return listener.onGetConnection(new GetConnectionEvent());
+  }
+
+  private SpyqlConnectionListener getOtherLeakedConnection() {
+    return listener.onGetConnection(new GetConnectionEvent());
+  }
+}
@@ -0,0 +1,136 @@
+package com.transferwise.common.entrypoints.databaseaccessstatistics;
+
+import com.transferwise.common.baseutils.meters.cache.MeterCache;
+import com.transferwise.common.entrypoints.EntryPointsMetrics;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DasUnknownCallSitesTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private EntryPointsProperties entryPointsProperties;
+  private EntryPointsProperties.Das.UnknownCallSites properties;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    entryPointsProperties = new EntryPointsProperties();
+    properties = entryPointsProperties.getDas().getUnknownCallSites();
+    properties.setEnabled(true);
+    properties.setFramesCount(1);
+    properties.setExcludedPackages(List.of("java.", "jdk.", "org.junit."));
+  }
+
+  @Test
+  @SneakyThrows
+  void callSitesAreAggregatedByApplicationFrames() {
+    properties.setSamplesPerSecond(1000);
+    var unknownCallSites = new DasUnknownCallSites(entryPointsProperties, new MeterCache(meterRegistry));
+
+    for (int i = 0; i < 3; i++) {
+      callFromA(unknownCallSites);
+      Thread.sleep(2);
+    }
+    callFromB(unknownCallSites);
+
+    unknownCallSites.report();
+
+    Assertions.assertEquals(3, callSiteSamples("callFromA"));
+    Assertions.assertEquals(1, callSiteSamples("callFromB"));
+  }
+
+  @Test
+  void samplesAreRateLimited() {
+    properties.setSamplesPerSecond(1);
+    var unknownCallSites = new DasUnknownCallSites(entryPointsProperties, new MeterCache(meterRegistry));
+
+    for (int i = 0; i < 100; i++) {
+      callFromA(unknownCallSites);
+    }
+    unknownCallSites.report();
+
+    Assertions.assertEquals(1, callSiteSamples("callFromA"));
+  }
+
+  @Test
+  @SneakyThrows
+  void callSitesOverTheLimitAreCountedAsOther() {
+    properties.setSamplesPerSecond(1000);
+    properties.setMaxCallSites(1);
+    var unknownCallSites = new DasUnknownCallSites(entryPointsProperties, new MeterCache(meterRegistry));
+
+    callFromA(unknownCallSites);
+    Thread.sleep(2);
+    callFromB(unknownCallSites);
+    unknownCallSites.report();
+
+    Assertions.assertEquals(1, callSiteSamples("callFromA"));
+    Assertions.assertEquals(0, callSiteSamples("callFromB"));
+    Assertions.assertEquals(1, counter(DasUnknownCallSites.CALL_SITE_OTHER).count());
+  }
+
+  @Test
+  @SneakyThrows
+  void onlyTopCallSitesAreExported() {
+    properties.setSamplesPerSecond(1000);
+    properties.setTopK(1);
+    var unknownCallSites = new DasUnknownCallSites(entryPointsProperties, new MeterCache(meterRegistry));
+
+    for (int i = 0; i < 2; i++) {
+      callFromA(unknownCallSites);
+      Thread.sleep(2);
+    }
+    callFromB(unknownCallSites);
+    unknownCallSites.report();
+
+    Assertions.assertEquals(2, callSiteSamples("callFromA"));
+    Assertions.assertEquals(0, callSiteSamples("callFromB"));
+    Assertions.assertEquals(1, counter(DasUnknownCallSites.CALL_SITE_OTHER).count());
+  }
+
+  @Test
+  @SneakyThrows
+  void exportedCallSitesAreBounded() {
+    properties.setSamplesPerSecond(1000);
+    properties.setMaxExportedCallSites(1);
+    var unknownCallSites = new DasUnknownCallSites(entryPointsProperties, new MeterCache(meterRegistry));
+
+    callFromA(unknownCallSites);
+    unknownCallSites.report();
+    Thread.sleep(2);
+    callFromB(unknownCallSites);
+    unknownCallSites.report();
+    Thread.sleep(2);
+    callFromA(unknownCallSites);
+    unknownCallSites.report();
+
+    Assertions.assertEquals(2, callSiteSamples("callFromA"));
+    Assertions.assertEquals(0, callSiteSamples("callFromB"));
+    Assertions.assertEquals(1, counter(DasUnknownCallSites.CALL_SITE_OTHER).count());
+  }
+
+  private void callFromA(DasUnknownCallSites unknownCallSites) {
+    unknownCallSites.registerStatement("mydb");
+  }
+
+  private void callFromB(DasUnknownCallSites unknownCallSites) {
+    unknownCallSites.registerStatement("mydb");
+  }
+
+  private double callSiteSamples(String methodName) {
+    return meterRegistry.find(DasUnknownCallSites.COUNTER_CALL_SITE_SAMPLES).counters().stream()
+        .filter(c -> c.getId().getTag(DasUnknownCallSites.TAG_CALL_SITE).contains(getClass().getName() + "." + methodName + ":"))
+        .mapToDouble(Counter::count).sum();
+  }
+
+  private Counter counter(String callSite) {
+    return meterRegistry.get(DasUnknownCallSites.COUNTER_CALL_SITE_SAMPLES).tag(EntryPointsMetrics.TAG_DATABASE, "mydb")
+        .tag(DasUnknownCallSites.TAG_CALL_SITE, callSite).counter();
+  }
+}
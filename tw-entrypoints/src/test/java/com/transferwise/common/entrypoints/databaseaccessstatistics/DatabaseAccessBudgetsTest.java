@@ -0,0 +1,112 @@
+package com.transferwise.common.entrypoints.databaseaccessstatistics;
+
+import com.transferwise.common.baseutils.meters.cache.MeterCache;
+import com.transferwise.common.context.TwContext;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import com.transferwise.common.entrypoints.EntryPointsProperties.Das.Budget;
+import com.transferwise.common.entrypoints.EntryPointsProperties.Das.Budget.Mode;
+import com.transferwise.common.spyql.event.GetConnectionEvent;
+import com.transferwise.common.spyql.event.StatementExecuteEvent;
+import com.transferwise.common.spyql.event.TransactionCommitEvent;
+import com.transferwise.common.spyql.listener.SpyqlConnectionListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DatabaseAccessBudgetsTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private EntryPointsProperties entryPointsProperties;
+  private DatabaseAccessStatisticsEntryPointInterceptor interceptor;
+  private DatabaseAccessStatisticsSpyqlListener listener;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    entryPointsProperties = new EntryPointsProperties();
+    interceptor = new DatabaseAccessStatisticsEntryPointInterceptor(new MeterCache(meterRegistry), entryPointsProperties);
+    listener = new DatabaseAccessStatisticsSpyqlListener("mydb");
+  }
+
+  @Test
+  void exceededLimitsAreCountedOnce() {
+    var budget = new Budget();
+    budget.setEntryPointName("/v1/transfers/*");
+    budget.setMaxQueries(3);
+    budget.setMaxTransactions(1);
+    budget.setMaxTimeInDatabase(Duration.ofSeconds(1));
+    entryPointsProperties.getDas().getBudgets().add(budget);
+
+    execute("/v1/transfers/{id}", 10, 2);
+
+    Assertions.assertEquals(1, violations("queries"));
+    Assertions.assertEquals(1, violations("transactions"));
+    Assertions.assertEquals(0, violations("timeInDatabase"));
+  }
+
+  @Test
+  void onlyMatchingEntryPointsHaveBudgets() {
+    var budget = new Budget();
+    budget.setEntryPointName("/v1/transfers/*");
+    budget.setMaxQueries(3);
+    entryPointsProperties.getDas().getBudgets().add(budget);
+
+    execute("/v1/payouts/{id}", 10, 0);
+
+    Assertions.assertEquals(0, violations("queries"));
+  }
+
+  @Test
+  void failModeThrowsWhenEntryPointEnds() {
+    var budget = new Budget();
+    budget.setMaxTimeInDatabase(Duration.ofMillis(5));
+    budget.setMode(Mode.FAIL);
+    entryPointsProperties.getDas().getBudgets().add(budget);
+
+    var e = Assertions.assertThrows(DatabaseAccessBudgetExceededException.class, () -> execute("myEntryPoint", 10, 0));
+    Assertions.assertEquals("Entrypoint 'Test:myEntryPoint' went over its database access budget: timeInDatabase 6ms > 5ms.", e.getMessage());
+    Assertions.assertEquals(1, violations("timeInDatabase"));
+  }
+
+  @Test
+  void nestedEntryPointsDoNotChargeTheirParentsBudget() {
+    var budget = new Budget();
+    budget.setEntryPointName("/v1/transfers/*");
+    budget.setMaxQueries(3);
+    budget.setMode(Mode.FAIL);
+    entryPointsProperties.getDas().getBudgets().add(budget);
+
+    Assertions.assertDoesNotThrow(() -> execute("/v1/transfers/{id}", 1, 0, () -> execute("/v1/payouts/{id}", 10, 0)));
+    Assertions.assertEquals(0, violations("queries"));
+  }
+
+  private void execute(String epName, int queries, int commits) {
+    execute(epName, queries, commits, () -> {
+    });
+  }
+
+  private void execute(String epName, int queries, int commits, Runnable nested) {
+    TwContext.current().createSubContext().asEntryPoint("Test", epName).execute(() ->
+        interceptor.intercept(TwContext.current(), () -> {
+          SpyqlConnectionListener connectionListener = listener.onGetConnection(new GetConnectionEvent());
+          for (int i = 0; i < queries; i++) {
+            connectionListener.onStatementExecute(new StatementExecuteEvent().setSql("select * from a where id=" + i)
+                .setExecutionTimeNs(Duration.ofMillis(1).toNanos()));
+          }
+          for (int i = 0; i < commits; i++) {
+            connectionListener.onTransactionCommit(new TransactionCommitEvent().setExecutionTimeNs(0));
+          }
+          nested.run();
+          return null;
+        }));
+  }
+
+  private double violations(String limit) {
+    Counter counter = meterRegistry.find(DatabaseAccessBudgets.COUNTER_BUDGET_VIOLATIONS).tag(DatabaseAccessBudgets.TAG_BUDGET, limit)
+        .counter();
+    return counter == null ? 0 : counter.count();
+  }
+}
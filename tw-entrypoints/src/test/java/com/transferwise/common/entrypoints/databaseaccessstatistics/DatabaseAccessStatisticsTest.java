@@ -0,0 +1,109 @@
+package com.transferwise.common.entrypoints.databaseaccessstatistics;
+
+import com.transferwise.common.spyql.event.StatementExecuteEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DatabaseAccessStatisticsTest {
+
+  private static final int THREADS = 4;
+  private static final int QUERIES_PER_THREAD = 10_000;
+
+  private final StatementExecuteEvent event = new StatementExecuteEvent().setInTransaction(true).setExecutionTimeNs(10)
+      .setAffectedRowsCount(2);
+
+  @Test
+  @SneakyThrows
+  void updatesFromOwnerAndOtherThreadsAreAllCounted() {
+    var das = new DatabaseAccessStatistics("mydb", Thread.currentThread());
+
+    ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(executorService.submit(() -> registerQueries(das)));
+      }
+      registerQueries(das);
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executorService.shutdown();
+    }
+
+    long expectedQueries = (THREADS + 1L) * QUERIES_PER_THREAD;
+    Assertions.assertEquals(expectedQueries, das.getTransactionalQueriesCount());
+    Assertions.assertEquals(0, das.getNonTransactionalQueriesCount());
+    Assertions.assertEquals(expectedQueries * 10, das.getTimeTakenInDatabaseNs());
+    Assertions.assertEquals(expectedQueries * 2, das.getAffectedRowsCount());
+
+    Assertions.assertEquals(expectedQueries, das.getAndResetTransactionalQueriesCount());
+    Assertions.assertEquals(0, das.getTransactionalQueriesCount());
+  }
+
+  @Test
+  @SneakyThrows
+  void sharedInstanceCountsAllThreads() {
+    var das = new DatabaseAccessStatistics("mydb");
+
+    ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(executorService.submit(() -> registerQueries(das)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executorService.shutdown();
+    }
+
+    Assertions.assertEquals((long) THREADS * QUERIES_PER_THREAD, das.getAndResetTransactionalQueriesCount());
+    Assertions.assertEquals(0, das.getAndResetTransactionalQueriesCount());
+  }
+
+  @Test
+  @SneakyThrows
+  void concurrentConnectionsAreTrackedExactly() {
+    var das = new DatabaseAccessStatistics("mydb", Thread.currentThread());
+    var allOpened = new CyclicBarrier(THREADS);
+
+    ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (int round = 0; round < 100; round++) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+          futures.add(executorService.submit(() -> {
+            das.registerConnectionOpened();
+            allOpened.await();
+            das.registerConnectionClosed(1);
+            return null;
+          }));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+        Assertions.assertEquals(0, das.getCurrentConnectionsCount());
+      }
+    } finally {
+      executorService.shutdown();
+    }
+
+    Assertions.assertEquals(THREADS, das.getMaxConnectionsCount());
+    Assertions.assertEquals(100L * THREADS, das.getTimeTakenInDatabaseNs());
+  }
+
+  private void registerQueries(DatabaseAccessStatistics das) {
+    for (int i = 0; i < QUERIES_PER_THREAD; i++) {
+      das.registerQuery(event);
+    }
+  }
+}
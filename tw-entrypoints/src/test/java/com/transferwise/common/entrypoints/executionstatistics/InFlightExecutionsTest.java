@@ -0,0 +1,138 @@
+package com.transferwise.common.entrypoints.executionstatistics;
+
+import com.transferwise.common.baseutils.meters.cache.MeterCache;
+import com.transferwise.common.baseutils.meters.cache.TagsSet;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InFlightExecutionsTest {
+
+  private static final TagsSet TAGS = TagsSet.of("epGroup", "Test", "epName", "myEntryPoint");
+
+  private SimpleMeterRegistry meterRegistry;
+  private EntryPointsProperties entryPointsProperties;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    entryPointsProperties = new EntryPointsProperties();
+  }
+
+  @Test
+  void executionsAreCounted() {
+    var inFlightExecutions = new InFlightExecutions(new MeterCache(meterRegistry), entryPointsProperties);
+
+    var first = inFlightExecutions.begin(TAGS);
+    var second = inFlightExecutions.begin(TAGS);
+    Assertions.assertEquals(2, gauge(InFlightExecutions.GAUGE_IN_FLIGHT).value());
+
+    inFlightExecutions.end(first);
+    Assertions.assertEquals(1, gauge(InFlightExecutions.GAUGE_IN_FLIGHT).value());
+    inFlightExecutions.end(second);
+    Assertions.assertEquals(0, gauge(InFlightExecutions.GAUGE_IN_FLIGHT).value());
+  }
+
+  @Test
+  void peakOfThePreviousWindowIsExposed() {
+    var inFlightExecutions = new InFlightExecutions(new MeterCache(meterRegistry), entryPointsProperties);
+
+    var first = inFlightExecutions.begin(TAGS);
+    var second = inFlightExecutions.begin(TAGS);
+    inFlightExecutions.end(second);
+    Assertions.assertEquals(0, gauge(InFlightExecutions.GAUGE_IN_FLIGHT_PEAK).value());
+
+    inFlightExecutions.endPeakWindow();
+    Assertions.assertEquals(2, gauge(InFlightExecutions.GAUGE_IN_FLIGHT_PEAK).value());
+    // Reading has no side effects.
+    Assertions.assertEquals(2, gauge(InFlightExecutions.GAUGE_IN_FLIGHT_PEAK).value());
+
+    // The next window starts from the executions running.
+    inFlightExecutions.endPeakWindow();
+    Assertions.assertEquals(1, gauge(InFlightExecutions.GAUGE_IN_FLIGHT_PEAK).value());
+    inFlightExecutions.end(first);
+  }
+
+  @Test
+  @SneakyThrows
+  void idleCountersAreRemoved() {
+    entryPointsProperties.getEs().getInFlight().setIdleTimeout(Duration.ZERO);
+    var inFlightExecutions = new InFlightExecutions(new MeterCache(meterRegistry), entryPointsProperties);
+
+    var running = inFlightExecutions.begin(TAGS);
+    inFlightExecutions.end(inFlightExecutions.begin(TagsSet.of("epGroup", "Test", "epName", "myOtherEntryPoint")));
+    Thread.sleep(2);
+    inFlightExecutions.endPeakWindow();
+
+    // Running executions keep their counter.
+    Assertions.assertEquals(1, gauge(InFlightExecutions.GAUGE_IN_FLIGHT).value());
+    Assertions.assertNull(meterRegistry.find(InFlightExecutions.GAUGE_IN_FLIGHT).tag("epName", "myOtherEntryPoint").gauge());
+
+    inFlightExecutions.end(running);
+    Thread.sleep(2);
+    inFlightExecutions.endPeakWindow();
+    Assertions.assertTrue(meterRegistry.find(InFlightExecutions.GAUGE_IN_FLIGHT).gauges().isEmpty());
+    Assertions.assertTrue(meterRegistry.find(InFlightExecutions.GAUGE_IN_FLIGHT_PEAK).gauges().isEmpty());
+
+    // A retired counter is replaced by a new one, with new gauges.
+    var again = inFlightExecutions.begin(TAGS);
+    Assertions.assertEquals(1, gauge(InFlightExecutions.GAUGE_IN_FLIGHT).value());
+    inFlightExecutions.end(again);
+  }
+
+  @Test
+  @SneakyThrows
+  void concurrentExecutionsAreNotLostWhileCountersAreRetired() {
+    entryPointsProperties.getEs().getInFlight().setIdleTimeout(Duration.ZERO);
+    var inFlightExecutions = new InFlightExecutions(new MeterCache(meterRegistry), entryPointsProperties);
+    var stop = new AtomicBoolean();
+    ExecutorService executor = Executors.newFixedThreadPool(5);
+    try {
+      var retirer = executor.submit(() -> {
+        while (!stop.get()) {
+          inFlightExecutions.endPeakWindow();
+        }
+      });
+
+      List<Future<?>> workers = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        workers.add(executor.submit(() -> {
+          for (int i = 0; i < 20_000; i++) {
+            var counter = inFlightExecutions.begin(TAGS);
+            Assertions.assertTrue(gauge(InFlightExecutions.GAUGE_IN_FLIGHT).value() >= 1);
+            inFlightExecutions.end(counter);
+          }
+        }));
+      }
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+      stop.set(true);
+      retirer.get();
+    } finally {
+      executor.shutdownNow();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    var running = inFlightExecutions.begin(TAGS);
+    Assertions.assertEquals(1, meterRegistry.find(InFlightExecutions.GAUGE_IN_FLIGHT).gauges().size());
+    Assertions.assertEquals(1, gauge(InFlightExecutions.GAUGE_IN_FLIGHT).value());
+    inFlightExecutions.end(running);
+  }
+
+  private Gauge gauge(String name) {
+    return meterRegistry.get(name).tag("epName", "myEntryPoint").gauge();
+  }
+}
@@ -0,0 +1,161 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.SneakyThrows;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.Statements;
+import net.sf.jsqlparser.statement.delete.Delete;
+import net.sf.jsqlparser.statement.insert.Insert;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.update.Update;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Differential tests, verifying that the fast path gives exactly the same results as JSqlParser with `CustomTablesNamesFinder`.
+ */
+class FastSqlParserTest {
+
+  private static final ExecutorService executorService = Executors.newCachedThreadPool();
+
+  private final FastSqlParser fastSqlParser = new FastSqlParser();
+  private final SqlParser sqlParser = new SqlParser(executorService);
+
+  @AfterAll
+  static void tearDown() {
+    executorService.shutdown();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "select id, version from tw_task where id = ?",
+      "SELECT id, version FROM tw_task WHERE id = ?",
+      "select * from tw_task",
+      "select t.id from tw_task t where t.status = 'NEW' and t.version > 5",
+      "select t.id from tw_task as t where t.status in (?, ?, ?) order by t.id limit 10",
+      "select count(*) from payout where state = ? group by currency having count(*) > 1",
+      "select id from fx.request where id = 1",
+      "select id from `fx`.`request` where id = 1",
+      "select id from \"public\".\"request\" where id = 1",
+      "select id from `table_a` where id = 1",
+      "select extract(year from created_at) from transfer where id = ?",
+      "select id from transfer where id = ? for update",
+      "select id from transfer where name = 'it''s from a join' limit ? offset ?",
+      "select id, \"from\" from transfer",
+      "select max(id) from transfer",
+      "insert into fin_unique_tw_task_key(task_id,key_hash,key) values(?, ?, ?) on conflict (key_hash, key) do nothing",
+      "insert into tw_task (id, status, version) values (?, ?, ?)",
+      "insert into tw_task values (?, ?, ?)",
+      "INSERT INTO tw_task(id, status) VALUES (?, ?), (?, ?)",
+      "insert into tw_task (id, status) values (?, ?) on duplicate key update status = values(status)",
+      "insert ignore into tw_task (id, status) values (?, ?)",
+      "insert into fx.request (id) values (?)",
+      "update tw_task set status = ?, version = version + 1 where id = ? and version = ?",
+      "UPDATE tw_task SET status = ? WHERE id = ?",
+      "update table_a set version=2",
+      "update `table_a` set version=2",
+      "update tw_task t set t.status = ? where t.id = ?",
+      "update fx.request set state = 'DONE' where id in (?, ?)",
+      "delete from tw_task where id = ?",
+      "delete from tw_task",
+      "DELETE FROM tw_task WHERE status = ? ORDER BY id LIMIT 100",
+      "delete from fx.request where id = ?"
+  })
+  void fastPathGivesTheSameResultAsJSqlParser(String sql) {
+    var fastResult = fastSqlParser.parse(sql);
+
+    Assertions.assertNotNull(fastResult, "Fast path did not handle '" + sql + "'.");
+    assertSameAsJSqlParser(sql, fastResult);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "",
+      "select 1",
+      "select DATABASE()",
+      "select id from a, b where a.id = b.id",
+      "select id from a join b on a.id = b.id",
+      "select id from a inner join b on a.id = b.id",
+      "select id from a left join b on a.id = b.id",
+      "select id from a natural join b",
+      "select id from a straight_join b on a.id = b.id",
+      "select id from a where id in (select id from b)",
+      "select id from a where exists (select 1 from b where b.id = a.id)",
+      "select (select max(id) from b) from a",
+      "select id from a union select id from b",
+      "select id from a use index (idx) where id = 1",
+      "select id from a partition (p1) where id = 1",
+      "select * from generate_series(1, 10)",
+      "select * from only a",
+      "select 1 from dual",
+      "select id into @x from a",
+      // JSqlParser can not parse it.
+      "select id from transfer where id = ? lock in share mode",
+      "select id from a; select id from b",
+      "select id from a;",
+      "select id from a -- comment",
+      "select id from a /* comment */ where id = 1",
+      "/* comment */ select id from a",
+      "select id from a where name = 'it\\'s'",
+      "select id from a where name = 'unterminated",
+      "select id from a . b",
+      "with x as (select id from a) select id from x",
+      "(select id from a)",
+      "insert into a select * from b",
+      "insert into a (id) select id from b",
+      "insert into a (id) values ((select max(id) from b))",
+      "insert low_priority into a (id) values (?)",
+      "insert into a default values",
+      "replace into a (id) values (?)",
+      "update a, b set a.x = b.x where a.id = b.id",
+      "update a join b on a.id = b.id set a.x = b.x",
+      "update a set x = (select max(x) from b)",
+      "update a set x = b.x from b where a.id = b.id",
+      "update low_priority a set x = 1",
+      "UPDATE ninjas_wkp_partition_locks USE INDEX (uqidx1) set deadline=?",
+      "delete tl from tag_links tl, tags t where t.name=? and tl.type=? and tl.tag_ref=? and tl.tag_id = t.id",
+      "delete from a using b where a.id = b.id",
+      "delete from a where id in (select id from b)",
+      "delete quick from a where id = 1",
+      "truncate table_a",
+      "SET statement_timeout TO '18000'",
+      "EXPLAIN FORMAT=JSON select * from fx.request where id = 1",
+      "SHOW FULL TABLES IN fx WHERE TABLE_TYPE NOT LIKE 'VIEW'"
+  })
+  void fastPathRejectsUnsupportedShapes(String sql) {
+    Assertions.assertNull(fastSqlParser.parse(sql), "Fast path should not handle '" + sql + "'.");
+  }
+
+  @SneakyThrows
+  private void assertSameAsJSqlParser(String sql, FastSqlParser.Result fastResult) {
+    Statements statements = sqlParser.parse(sql, Duration.ofSeconds(5));
+    Assertions.assertEquals(1, statements.size());
+
+    Statement statement = statements.get(0);
+    var tablesNamesFinder = new CustomTablesNamesFinder();
+    tablesNamesFinder.getTables(statement);
+
+    List<String> expectedTables = new ArrayList<>(tablesNamesFinder.getTables());
+    Assertions.assertEquals(expectedTables, List.of(fastResult.getTableName()), sql);
+    Assertions.assertEquals(operationName(statement), fastResult.getOperationName(), sql);
+  }
+
+  private String operationName(Statement statement) {
+    if (statement instanceof Select) {
+      return "select";
+    } else if (statement instanceof Update) {
+      return "update";
+    } else if (statement instanceof Insert) {
+      return "insert";
+    } else if (statement instanceof Delete) {
+      return "delete";
+    }
+    return statement.getClass().getSimpleName().toLowerCase();
+  }
+}
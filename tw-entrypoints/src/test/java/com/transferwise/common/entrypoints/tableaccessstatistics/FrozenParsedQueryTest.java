@@ -0,0 +1,45 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import com.transferwise.common.entrypoints.tableaccessstatistics.ParsedQuery.SqlOperation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FrozenParsedQueryTest {
+
+  @Test
+  void operationsAndTablesKeepTheirOrder() {
+    var parsedQuery = new ParsedQuery()
+        .addOperation("update", new SqlOperation().addTable("z_table").addTable("a_table").addTable("m_table").addTable("a_table"))
+        .addOperation("select", new SqlOperation().addTable("y_table"))
+        .addOperation("delete", new SqlOperation());
+
+    var frozen = FrozenParsedQuery.of(parsedQuery);
+
+    Assertions.assertEquals(3, frozen.getOperationsCount());
+    Assertions.assertEquals("update", frozen.getOperationName(0));
+    Assertions.assertEquals("select", frozen.getOperationName(1));
+    Assertions.assertEquals("delete", frozen.getOperationName(2));
+    Assertions.assertEquals(3, frozen.getTablesCount(0));
+    Assertions.assertEquals("z_table", frozen.getTableName(0, 0));
+    Assertions.assertEquals("a_table", frozen.getTableName(0, 1));
+    Assertions.assertEquals("m_table", frozen.getTableName(0, 2));
+    Assertions.assertEquals(0, frozen.getTablesCount(2));
+    Assertions.assertEquals(parsedQuery, frozen.toParsedQuery());
+  }
+
+  @Test
+  void namesArePooled() {
+    var first = FrozenParsedQuery.of(new ParsedQuery().addOperation("select", new SqlOperation().addTable(new String("tw_task"))));
+    var second = FrozenParsedQuery.of(new ParsedQuery().addOperation("select", new SqlOperation().addTable(new String("tw_task"))));
+
+    Assertions.assertEquals(first, second);
+    Assertions.assertSame(first.getTableName(0, 0), second.getTableName(0, 0));
+  }
+
+  @Test
+  void emptyParsedQueryIsShared() {
+    Assertions.assertSame(FrozenParsedQuery.EMPTY, FrozenParsedQuery.of(new ParsedQuery()));
+    Assertions.assertSame(FrozenParsedQuery.EMPTY, FrozenParsedQuery.of(null));
+    Assertions.assertTrue(FrozenParsedQuery.EMPTY.isEmpty());
+  }
+}
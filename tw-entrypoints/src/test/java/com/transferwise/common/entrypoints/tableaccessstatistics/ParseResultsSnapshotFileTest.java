@@ -0,0 +1,72 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import com.transferwise.common.entrypoints.tableaccessstatistics.ParsedQuery.SqlOperation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParseResultsSnapshotFileTest {
+
+  private final ParseResultsSnapshotFile snapshotFile = new ParseResultsSnapshotFile();
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  @SneakyThrows
+  void parseResultsCanBeWrittenAndReadBack() {
+    var file = tempDir.resolve("snapshots/mydb.bin");
+    var parseResults = new LinkedHashMap<Object, FrozenParsedQuery>();
+    parseResults.put("select id from tw_task where id = ?", parsedQuery("select", "tw_task"));
+    parseResults.put("insert into b select * from a where name = 'õun'", parsedQuery("insert", "b", "a"));
+    parseResults.put(SqlFingerprint.of("delete from a", false), parsedQuery("delete", "a"));
+    parseResults.put(SqlFingerprint.of("delete from b", true), parsedQuery("delete", "b"));
+
+    snapshotFile.write(file, "1", parseResults);
+    Map<Object, FrozenParsedQuery> result = snapshotFile.read(file, "1");
+
+    Assertions.assertEquals(parseResults, result);
+    Assertions.assertEquals("b", result.get("insert into b select * from a where name = 'õun'").getTableName(0, 0));
+    Assertions.assertSame(NamesPool.intern("tw_task"), result.get("select id from tw_task where id = ?").getTableName(0, 0));
+    Assertions.assertFalse(Files.exists(tempDir.resolve("snapshots/mydb.bin.tmp")));
+  }
+
+  @Test
+  @SneakyThrows
+  void snapshotOfDifferentVersionIsIgnored() {
+    var file = tempDir.resolve("mydb.bin");
+    snapshotFile.write(file, "1", Map.of("select id from a", parsedQuery("select", "a")));
+
+    Assertions.assertTrue(snapshotFile.read(file, "2").isEmpty());
+  }
+
+  @Test
+  @SneakyThrows
+  void missingOrCorruptedSnapshotIsIgnored() {
+    Assertions.assertTrue(snapshotFile.read(tempDir.resolve("missing.bin"), "1").isEmpty());
+
+    var file = tempDir.resolve("mydb.bin");
+    snapshotFile.write(file, "1", Map.of("select id from a", parsedQuery("select", "a")));
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+    Assertions.assertTrue(snapshotFile.read(file, "1").isEmpty());
+
+    Files.write(file, "garbage".getBytes());
+    Assertions.assertTrue(snapshotFile.read(file, "1").isEmpty());
+  }
+
+  private static FrozenParsedQuery parsedQuery(String operationName, String... tableNames) {
+    var sqlOperation = new SqlOperation();
+    for (String tableName : tableNames) {
+      sqlOperation.addTable(tableName);
+    }
+    return FrozenParsedQuery.of(new ParsedQuery().addOperation(operationName, sqlOperation));
+  }
+}
@@ -0,0 +1,39 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RepeatedQueriesTest {
+
+  @Test
+  void shapesAreCountedByEquality() {
+    var repeatedQueries = new RepeatedQueries(16);
+
+    Assertions.assertEquals(1, repeatedQueries.add(shape("table_a"), 1));
+    Assertions.assertEquals(2, repeatedQueries.add(shape("table_a"), 1));
+    Assertions.assertEquals(12, repeatedQueries.add(shape("table_a"), 10));
+    Assertions.assertEquals(1, repeatedQueries.add(shape("table_b"), 1));
+    Assertions.assertEquals(1, repeatedQueries.add(SqlFingerprint.of(shape("table_c"), false), 1));
+    Assertions.assertEquals(2, repeatedQueries.add(SqlFingerprint.of(shape("table_c"), false), 1));
+  }
+
+  @Test
+  void shapesOverTheLimitAreNotTracked() {
+    var repeatedQueries = new RepeatedQueries(3);
+    var shapes = new String[10];
+    for (int i = 0; i < shapes.length; i++) {
+      shapes[i] = shape("table_" + i);
+    }
+
+    for (int i = 0; i < shapes.length; i++) {
+      Assertions.assertEquals(i < 3 ? 1 : 0, repeatedQueries.add(shapes[i], 1));
+    }
+    for (int i = 0; i < 3; i++) {
+      Assertions.assertEquals(2, repeatedQueries.add(shapes[i], 1));
+    }
+  }
+
+  private static String shape(String table) {
+    return new StringBuilder("select id from ").append(table).append(" where id = ?").toString();
+  }
+}
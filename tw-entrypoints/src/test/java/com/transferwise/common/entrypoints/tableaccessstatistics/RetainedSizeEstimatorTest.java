@@ -0,0 +1,39 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import com.transferwise.common.entrypoints.tableaccessstatistics.ParsedQuery.SqlOperation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RetainedSizeEstimatorTest {
+
+  private static final String SQL = "select id, status, version, created_at, updated_at from tw_task where status = ? and next_event_time < ?";
+
+  private final RetainedSizeEstimator retainedSizeEstimator = new RetainedSizeEstimator();
+
+  @Test
+  void fingerprintsAreEqualOnlyForSameStatements() {
+    Assertions.assertEquals(SqlFingerprint.of(SQL, false), SqlFingerprint.of(SQL, false));
+    Assertions.assertEquals(SqlFingerprint.of(SQL, false).hashCode(), SqlFingerprint.of(SQL, false).hashCode());
+    Assertions.assertEquals(SqlFingerprint.of(SQL, true), SqlFingerprint.of(SQL, true));
+    Assertions.assertNotEquals(SqlFingerprint.of(SQL, false), SqlFingerprint.of(SQL + " ", false));
+    Assertions.assertNotEquals(new SqlFingerprint(1, 2, "select 1"), new SqlFingerprint(1, 2, "select 2"));
+  }
+
+  @Test
+  void valuesAndKeysAreAccountedFor() {
+    var parsedQuery = FrozenParsedQuery.of(new ParsedQuery().addOperation("select", new SqlOperation().addTable("tw_task")));
+    var joinParsedQuery = FrozenParsedQuery.of(new ParsedQuery().addOperation("select", new SqlOperation().addTable("tw_task")
+        .addTable("tw_task_data").addTable("tw_task_history")));
+
+    int sqlKeyed = retainedSizeEstimator.estimate(SQL, parsedQuery);
+    int fingerprintKeyed = retainedSizeEstimator.estimate(SqlFingerprint.of(SQL, false), parsedQuery);
+    int verifiedFingerprintKeyed = retainedSizeEstimator.estimate(SqlFingerprint.of(SQL, true), parsedQuery);
+
+    // String object, byte array with the characters, parsed query with its arrays and the cache node.
+    Assertions.assertTrue(sqlKeyed > SQL.length() + 150, "Estimate was " + sqlKeyed);
+    Assertions.assertTrue(fingerprintKeyed < sqlKeyed);
+    Assertions.assertTrue(verifiedFingerprintKeyed > sqlKeyed);
+    Assertions.assertTrue(retainedSizeEstimator.estimate(SQL, joinParsedQuery) > sqlKeyed);
+    Assertions.assertEquals(sqlKeyed - 40, retainedSizeEstimator.estimate(SQL.substring(40), parsedQuery), 8);
+  }
+}
@@ -0,0 +1,81 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SlowestStatementsTest {
+
+  @Test
+  void slowestStatementsAreKept() {
+    var slowestStatements = slowestStatements(3, Duration.ofMinutes(5));
+    long nowMs = System.currentTimeMillis();
+
+    for (int i = 1; i <= 10; i++) {
+      long executionTimeNs = TimeUnit.MILLISECONDS.toNanos(10L * i);
+      if (slowestStatements.isCandidate(executionTimeNs)) {
+        slowestStatements.add(statement("fp" + i, executionTimeNs, nowMs));
+      }
+    }
+
+    Assertions.assertEquals(List.of("fp10", "fp9", "fp8"), fingerprints(slowestStatements));
+    Assertions.assertFalse(slowestStatements.isCandidate(TimeUnit.MILLISECONDS.toNanos(80)));
+    Assertions.assertTrue(slowestStatements.isCandidate(TimeUnit.MILLISECONDS.toNanos(81)));
+  }
+
+  @Test
+  void onlyTheSlowestExecutionOfAStatementIsKept() {
+    var slowestStatements = slowestStatements(3, Duration.ofMinutes(5));
+    long nowMs = System.currentTimeMillis();
+
+    slowestStatements.add(statement("fp1", TimeUnit.MILLISECONDS.toNanos(50), nowMs));
+    slowestStatements.add(statement("fp1", TimeUnit.MILLISECONDS.toNanos(100), nowMs));
+    slowestStatements.add(statement("fp1", TimeUnit.MILLISECONDS.toNanos(70), nowMs));
+    slowestStatements.add(statement("fp2", TimeUnit.MILLISECONDS.toNanos(20), nowMs));
+
+    var statements = slowestStatements.getStatements();
+    Assertions.assertEquals(2, statements.size());
+    Assertions.assertEquals("fp1", statements.get(0).getFingerprint());
+    Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), statements.get(0).getExecutionTimeNs());
+  }
+
+  @Test
+  void statementsOutsideOfTheWindowExpire() {
+    var slowestStatements = slowestStatements(2, Duration.ofMinutes(1));
+    long nowMs = System.currentTimeMillis();
+
+    slowestStatements.add(statement("fp1", TimeUnit.SECONDS.toNanos(10), nowMs - Duration.ofMinutes(2).toMillis()));
+    slowestStatements.add(statement("fp2", TimeUnit.SECONDS.toNanos(5), nowMs));
+    slowestStatements.add(statement("fp3", TimeUnit.MILLISECONDS.toNanos(20), nowMs));
+
+    Assertions.assertEquals(List.of("fp2", "fp3"), fingerprints(slowestStatements));
+  }
+
+  @Test
+  void fastStatementsAreNotCandidates() {
+    var slowestStatements = slowestStatements(3, Duration.ofMinutes(5));
+
+    Assertions.assertFalse(slowestStatements.isCandidate(TimeUnit.MILLISECONDS.toNanos(9)));
+    Assertions.assertTrue(slowestStatements.isCandidate(TimeUnit.MILLISECONDS.toNanos(10)));
+  }
+
+  private static SlowestStatements slowestStatements(int size, Duration window) {
+    var entryPointsProperties = new EntryPointsProperties();
+    var properties = entryPointsProperties.getTas().getSlowestStatements();
+    properties.setSize(size);
+    properties.setWindow(window);
+    return new SlowestStatements(entryPointsProperties);
+  }
+
+  private static SlowStatement statement(String fingerprint, long executionTimeNs, long timestampMs) {
+    return new SlowStatement().setFingerprint(fingerprint).setDatabase("db").setExecutionTimeNs(executionTimeNs).setTimestampMs(timestampMs);
+  }
+
+  private static List<String> fingerprints(SlowestStatements slowestStatements) {
+    return slowestStatements.getStatements().stream().map(SlowStatement::getFingerprint).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,100 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class SqlNormalizerTest {
+
+  private final SqlNormalizer sqlNormalizer = new SqlNormalizer();
+
+  @ParameterizedTest
+  @MethodSource("normalizationCases")
+  void literalsAndInListsAreNormalized(String sql, String expected) {
+    Assertions.assertEquals(expected, sqlNormalizer.normalize(sql));
+  }
+
+  static Stream<Arguments> normalizationCases() {
+    return Stream.of(
+        Arguments.of("select id from tw_task where id = 5",
+            "select id from tw_task where id = ?"),
+        Arguments.of("select id from tw_task where status = 'NEW' and version > 1.5e3",
+            "select id from tw_task where status = ? and version > ?"),
+        Arguments.of("select id from tw_task where status = 'it''s'",
+            "select id from tw_task where status = ?"),
+        Arguments.of("select id from tw_task where id in (?, ?, ?)",
+            "select id from tw_task where id in (?)"),
+        Arguments.of("select id from tw_task where id IN(1,2,3) limit 10",
+            "select id from tw_task where id IN (?) limit ?"),
+        Arguments.of("select id from tw_task where id not in ('a', 'b')",
+            "select id from tw_task where id not in (?)"),
+        Arguments.of("select id from tw_task where id in (-1, +2)",
+            "select id from tw_task where id in (?)"),
+        Arguments.of("select id from tw_task where id in (select id from b)",
+            "select id from tw_task where id in (select id from b)"),
+        Arguments.of("select id from tw_task where id in (?, a)",
+            "select id from tw_task where id in (?, a)"),
+        Arguments.of("insert into t1 (a, b) values (1, 'x')",
+            "insert into t1 (a, b) values (?, ?)"),
+        Arguments.of("select id from 1table where x = 2",
+            "select id from 1table where x = ?"),
+        Arguments.of("select id from `t 1` where x = 2",
+            "select id from `t 1` where x = ?"),
+        Arguments.of("select id from \"t'1\" where x = 2",
+            "select id from \"t'1\" where x = ?"),
+        Arguments.of("select id from t -- don't\nwhere x = 2",
+            "select id from t -- don't\nwhere x = ?"),
+        Arguments.of("select /* don't */ id from t where x = 2",
+            "select /* don't */ id from t where x = ?"),
+        Arguments.of("select id from 'quoted_table' where x = 'a'",
+            "select id from 'quoted_table' where x = ?")
+    );
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "select id from tw_task where id = ?",
+      "select id from tw_task where id in (?)",
+      "update tw_task set status = ? where id = ? and version = ?",
+      "select id from t where name = 'it\\'s' and x = 1",
+      "select id from t where name = 'unterminated and x = 1",
+      "select $$ 1 $$ from t where x = 1"
+  })
+  void sameInstanceIsReturnedWhenNothingCanBeNormalized(String sql) {
+    Assertions.assertSame(sql, sqlNormalizer.normalize(sql));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "select id from t where name = 'it\\'s' and x = 1",
+      "select id from t where name = 'unterminated and x = 1",
+      "select id from t /* unterminated",
+      "select $$ 1 $$ from t where x = 1"
+  })
+  void statementsKeptAsIsAreToldApart(String sql) {
+    Assertions.assertNull(sqlNormalizer.tryNormalize(sql));
+  }
+
+  @Test
+  void normalizedStatementsAreNormalizedAgain() {
+    var normalizedSql = sqlNormalizer.tryNormalize("select id from 'quoted_table' where x = 'a' and y in (1, 2)");
+
+    Assertions.assertEquals("select id from 'quoted_table' where x = ? and y in (?)", normalizedSql);
+    Assertions.assertSame(normalizedSql, sqlNormalizer.tryNormalize(normalizedSql));
+  }
+
+  @Test
+  void distinctCountIsEstimated() {
+    var estimator = new DistinctCountEstimator(1 << 14);
+    for (int i = 0; i < 3000; i++) {
+      estimator.add("select id from t where x = " + i);
+      estimator.add("select id from t where x = " + i);
+    }
+
+    Assertions.assertEquals(3000, estimator.estimate(), 100);
+  }
+}
@@ -0,0 +1,47 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class StatementFailureCategoryTest {
+
+  @Test
+  void mysqlAndMariaDbFailuresAreClassified() {
+    Assertions.assertEquals(StatementFailureCategory.DEADLOCK, StatementFailureCategory.of(new SQLException("Deadlock", "40001", 1213)));
+    Assertions.assertEquals(StatementFailureCategory.LOCK_TIMEOUT, StatementFailureCategory.of(new SQLException("Lock wait", "HY000", 1205)));
+    Assertions.assertEquals(StatementFailureCategory.QUERY_TIMEOUT, StatementFailureCategory.of(new SQLException("Timeout", "70100", 1969)));
+    Assertions.assertEquals(StatementFailureCategory.CONSTRAINT, StatementFailureCategory.of(new SQLException("Duplicate", "23000", 1062)));
+    Assertions.assertEquals(StatementFailureCategory.OTHER, StatementFailureCategory.of(new SQLException("Syntax", "42000", 1064)));
+  }
+
+  @Test
+  void postgresFailuresAreClassified() {
+    Assertions.assertEquals(StatementFailureCategory.DEADLOCK, StatementFailureCategory.of(new SQLException("Deadlock", "40P01")));
+    Assertions.assertEquals(StatementFailureCategory.SERIALIZATION_FAILURE, StatementFailureCategory.of(new SQLException("Serialization", "40001")));
+    Assertions.assertEquals(StatementFailureCategory.LOCK_TIMEOUT, StatementFailureCategory.of(new SQLException("Lock", "55P03")));
+    Assertions.assertEquals(StatementFailureCategory.QUERY_TIMEOUT, StatementFailureCategory.of(new SQLException("Canceled", "57014")));
+    Assertions.assertEquals(StatementFailureCategory.CONSTRAINT, StatementFailureCategory.of(new SQLException("Unique", "23505")));
+    Assertions.assertEquals(StatementFailureCategory.CONNECTION, StatementFailureCategory.of(new SQLException("Connection", "08006")));
+    Assertions.assertEquals(StatementFailureCategory.OTHER, StatementFailureCategory.of(new SQLException("Syntax", "42601")));
+  }
+
+  @Test
+  void exceptionTypesAreUsedWithoutKnownCodes() {
+    Assertions.assertEquals(StatementFailureCategory.CONSTRAINT, StatementFailureCategory.of(new SQLIntegrityConstraintViolationException()));
+    Assertions.assertEquals(StatementFailureCategory.CONNECTION, StatementFailureCategory.of(new SQLTransientConnectionException()));
+    Assertions.assertEquals(StatementFailureCategory.QUERY_TIMEOUT, StatementFailureCategory.of(new SQLTimeoutException()));
+  }
+
+  @Test
+  void wrappedExceptionsAreUnwrapped() {
+    var e = new RuntimeException(new IllegalStateException(new SQLException("Deadlock", "40P01")));
+
+    Assertions.assertEquals(StatementFailureCategory.DEADLOCK, StatementFailureCategory.of(e));
+    Assertions.assertEquals(StatementFailureCategory.OTHER, StatementFailureCategory.of(new RuntimeException()));
+    Assertions.assertEquals(StatementFailureCategory.OTHER, StatementFailureCategory.of(null));
+  }
+}
@@ -0,0 +1,33 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TableAccessCountsTest {
+
+  @Test
+  void countsAreIncrementedOnFlush() {
+    var counter = new SimpleMeterRegistry().counter("EntryPoints_Tas_TableAccess");
+    var tableAccessCounts = new TableAccessCounts();
+
+    tableAccessCounts.add(counter, 1);
+    tableAccessCounts.add(counter, 2);
+    Assertions.assertEquals(0, counter.count());
+
+    tableAccessCounts.flush();
+    Assertions.assertEquals(3, counter.count());
+  }
+
+  @Test
+  void countsAddedAfterFlushAreNotLost() {
+    var counter = new SimpleMeterRegistry().counter("EntryPoints_Tas_TableAccess");
+    var tableAccessCounts = new TableAccessCounts();
+
+    tableAccessCounts.add(counter, 1);
+    tableAccessCounts.flush();
+    tableAccessCounts.add(counter, 5);
+
+    Assertions.assertEquals(6, counter.count());
+  }
+}
@@ -0,0 +1,169 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import com.transferwise.common.baseutils.meters.cache.MeterCache;
+import com.transferwise.common.context.TwContext;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import com.transferwise.common.entrypoints.tableaccessstatistics.ParsedQuery.SqlOperation;
+import com.transferwise.common.entrypoints.tableaccessstatistics.TasQueryParsingInterceptor.InterceptResult;
+import com.transferwise.common.spyql.event.GetConnectionEvent;
+import com.transferwise.common.spyql.event.StatementExecuteEvent;
+import com.transferwise.common.spyql.listener.SpyqlConnectionListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TableAccessStatisticsSpyqlListenerTest {
+
+  private ExecutorService executorService;
+  private SimpleMeterRegistry meterRegistry;
+  private EntryPointsProperties entryPointsProperties;
+
+  @BeforeEach
+  void setup() {
+    executorService = Executors.newSingleThreadExecutor();
+    meterRegistry = new SimpleMeterRegistry();
+    entryPointsProperties = new EntryPointsProperties();
+  }
+
+  @AfterEach
+  void cleanup() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void interceptorResultsAreDeduplicatedByContent() {
+    var listener = listener(sql -> InterceptResult.returnParsedQuery(parsedQuery("tw_task")));
+
+    Assertions.assertSame(listener.freezeByContent(parsedQuery("tw_task")), listener.freezeByContent(parsedQuery("tw_task")));
+    Assertions.assertNotSame(listener.freezeByContent(parsedQuery("tw_task")), listener.freezeByContent(parsedQuery("tw_task_data")));
+
+    var connectionListener = listener.onGetConnection(new GetConnectionEvent());
+    TwContext.current().createSubContext().asEntryPoint("Test", "myEntryPoint").execute(() -> {
+      TasUtils.disableQueryParsing(TwContext.current());
+      for (int i = 0; i < 3; i++) {
+        execute(connectionListener, "select id from tw_task where id = " + i);
+      }
+    });
+
+    Assertions.assertEquals(3, meterRegistry.get(TableAccessStatisticsSpyqlListener.COUNTER_TABLE_ACCESS).tag("table", "tw_task").counter()
+        .count());
+  }
+
+  @Test
+  void repeatedInterceptorResultsAreDetected() {
+    entryPointsProperties.getDas().getRepeatedQueries().setEnabled(true);
+    entryPointsProperties.getDas().getRepeatedQueries().setThreshold(2);
+    var listener = listener(sql -> InterceptResult.returnParsedQuery(parsedQuery("tw_task")));
+    var connectionListener = listener.onGetConnection(new GetConnectionEvent());
+
+    executeInEntryPoint(() -> {
+      TasUtils.disableQueryParsing(TwContext.current());
+      for (int i = 0; i < 3; i++) {
+        execute(connectionListener, "select id from tw_task where id = " + i);
+      }
+    });
+
+    Assertions.assertEquals(1, meterRegistry.get(TableAccessStatisticsSpyqlListener.COUNTER_REPEATED_QUERIES).tag("operation", "select")
+        .tag("table", "tw_task").counter().count());
+  }
+
+  @Test
+  @SneakyThrows
+  void repeatedStatementsWaitingForAsyncParseAreDetected() {
+    entryPointsProperties.getDas().getRepeatedQueries().setEnabled(true);
+    entryPointsProperties.getDas().getRepeatedQueries().setThreshold(2);
+    entryPointsProperties.getTas().getSqlParser().setAsyncParsingEnabled(true);
+    var parseAllowed = new CountDownLatch(1);
+    // Keeps the parses waiting, so every execution is a cache miss.
+    executorService.submit(() -> {
+      parseAllowed.await();
+      return null;
+    });
+    var listener = listener(new DefaultTasQueryParsingInterceptor());
+    var connectionListener = listener.onGetConnection(new GetConnectionEvent());
+
+    try {
+      executeInEntryPoint(() -> {
+        for (int i = 0; i < 3; i++) {
+          execute(connectionListener, "select id from tw_task where id = " + i);
+        }
+      });
+    } finally {
+      parseAllowed.countDown();
+    }
+
+    Assertions.assertEquals(1, meterRegistry.get(TableAccessStatisticsSpyqlListener.COUNTER_REPEATED_QUERIES).tag("operation", "")
+        .tag("table", "").counter().count());
+  }
+
+  @Test
+  void repeatedStatementsAreDetectedByNormalizedShapeWithoutCacheKeysNormalization() {
+    entryPointsProperties.getDas().getRepeatedQueries().setEnabled(true);
+    entryPointsProperties.getDas().getRepeatedQueries().setThreshold(2);
+    entryPointsProperties.getTas().getSqlParser().setNormalizeCacheKeys(false);
+    var listener = listener(new DefaultTasQueryParsingInterceptor());
+    var connectionListener = listener.onGetConnection(new GetConnectionEvent());
+
+    executeInEntryPoint(() -> {
+      for (int i = 0; i < 3; i++) {
+        execute(connectionListener, "select id from tw_task where id = " + i);
+      }
+    });
+
+    Assertions.assertEquals(1, meterRegistry.get(TableAccessStatisticsSpyqlListener.COUNTER_REPEATED_QUERIES).tag("table", "tw_task")
+        .counter().count());
+  }
+
+  @Test
+  void slowStatementsKeptAsIsByNormalizationAreListedWithoutSql() {
+    entryPointsProperties.getTas().getSlowestStatements().setMinExecutionTime(Duration.ZERO);
+    var slowestStatements = new SlowestStatements(entryPointsProperties);
+    var listener = listener(sql -> InterceptResult.returnParsedQuery(parsedQuery("tw_task")));
+    listener.setSlowestStatements(slowestStatements);
+    var connectionListener = listener.onGetConnection(new GetConnectionEvent());
+
+    executeInEntryPoint(() -> {
+      execute(connectionListener, "select id from tw_task where id = 5");
+      execute(connectionListener, "select id from tw_task where name = 'O\\'Brien'");
+    });
+
+    var statements = slowestStatements.getStatements();
+    Assertions.assertEquals(2, statements.size());
+    var normalized = statements.stream().filter(s -> s.getSql() != null).findFirst().orElseThrow();
+    Assertions.assertEquals("select id from tw_task where id = ?", normalized.getSql());
+    var keptAsIs = statements.stream().filter(s -> s.getSql() == null).findFirst().orElseThrow();
+    Assertions.assertEquals(32, keptAsIs.getFingerprint().length());
+    Assertions.assertEquals(List.of("tw_task"), keptAsIs.getTables());
+    Assertions.assertEquals("myEntryPoint", keptAsIs.getEntryPointName());
+  }
+
+  private void executeInEntryPoint(Runnable runnable) {
+    var interceptor = new TableAccessStatisticsEntryPointInterceptor(entryPointsProperties);
+    TwContext.current().createSubContext().asEntryPoint("Test", "myEntryPoint").execute(() ->
+        interceptor.intercept(TwContext.current(), () -> {
+          runnable.run();
+          return null;
+        }));
+  }
+
+  private TableAccessStatisticsSpyqlListener listener(TasQueryParsingInterceptor tasQueryParsingInterceptor) {
+    return new TableAccessStatisticsSpyqlListener(new MeterCache(meterRegistry), executorService, new DefaultTasParsedQueryRegistry(),
+        "mydb", entryPointsProperties, new DefaultTasQueryParsingListener(entryPointsProperties), tasQueryParsingInterceptor);
+  }
+
+  private static void execute(SpyqlConnectionListener connectionListener, String sql) {
+    connectionListener.onStatementExecute(new StatementExecuteEvent().setSql(sql).setInTransaction(true).setExecutionTimeNs(1_000_000));
+  }
+
+  private static ParsedQuery parsedQuery(String table) {
+    return new ParsedQuery().addOperation("select", new SqlOperation().addTable(table));
+  }
+}
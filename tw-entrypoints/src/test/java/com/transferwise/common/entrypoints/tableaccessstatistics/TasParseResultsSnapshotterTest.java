@@ -0,0 +1,62 @@
+package com.transferwise.common.entrypoints.tableaccessstatistics;
+
+import com.transferwise.common.baseutils.meters.cache.MeterCache;
+import com.transferwise.common.entrypoints.EntryPointsProperties;
+import com.transferwise.common.entrypoints.EntryPointsProperties.Tas.SqlParser.CacheKeyMode;
+import com.transferwise.common.entrypoints.tableaccessstatistics.ParsedQuery.SqlOperation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class TasParseResultsSnapshotterTest {
+
+  private static final String NORMALIZABLE_SQL = "select id from tw_task where id = 5";
+  private static final String BACKSLASH_ESCAPED_SQL = "select id from tw_task where name = 'O\\'Brien'";
+
+  @TempDir
+  Path tempDir;
+
+  private ExecutorService executorService;
+  private EntryPointsProperties entryPointsProperties;
+
+  @BeforeEach
+  void setup() {
+    executorService = Executors.newSingleThreadExecutor();
+    entryPointsProperties = new EntryPointsProperties();
+    entryPointsProperties.getTas().getParseResultsSnapshot().setDirectory(tempDir.toString());
+  }
+
+  @AfterEach
+  void cleanup() {
+    executorService.shutdownNow();
+  }
+
+  @ParameterizedTest
+  @EnumSource(CacheKeyMode.class)
+  void statementsKeptAsIsByNormalizationAreNotWritten(CacheKeyMode cacheKeyMode) {
+    entryPointsProperties.getTas().getSqlParser().setCacheKeyMode(cacheKeyMode);
+    var snapshotter = new TasParseResultsSnapshotter(entryPointsProperties, new DefaultTasQueryParsingInterceptor());
+    var listener = new TableAccessStatisticsSpyqlListener(new MeterCache(new SimpleMeterRegistry()), executorService,
+        new DefaultTasParsedQueryRegistry(), "mydb", entryPointsProperties, new DefaultTasQueryParsingListener(entryPointsProperties),
+        new DefaultTasQueryParsingInterceptor());
+
+    var parsedQuery = FrozenParsedQuery.of(new ParsedQuery().addOperation("select", new SqlOperation().addTable("tw_task")));
+    listener.sqlParseResultsCache.put(listener.toCacheKey(NORMALIZABLE_SQL), parsedQuery);
+    listener.sqlParseResultsCache.put(listener.toCacheKey(BACKSLASH_ESCAPED_SQL), parsedQuery);
+
+    snapshotter.write(listener);
+    var parseResults = new ParseResultsSnapshotFile().read(snapshotter.getFile("mydb"), snapshotter.getVersion());
+
+    Assertions.assertTrue(parseResults.containsKey(listener.toCacheKey(NORMALIZABLE_SQL)));
+    // Plain fingerprints do not contain the statement.
+    Assertions.assertEquals(cacheKeyMode == CacheKeyMode.FINGERPRINT, parseResults.containsKey(listener.toCacheKey(BACKSLASH_ESCAPED_SQL)));
+    Assertions.assertEquals(cacheKeyMode == CacheKeyMode.FINGERPRINT ? 2 : 1, parseResults.size());
+  }
+}